@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.BatchSolver;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
@@ -37,15 +38,31 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     private final Solver<Node, Fact> solver;
 
+    /**
+     * If true, only out facts are kept in the analysis results.
+     */
+    protected final boolean outOnly;
+
+    /**
+     * If true, the analysis is solved together with the other batched
+     * analyses on the same CFG by {@link BatchSolver}.
+     */
+    private final boolean batch;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
         solver = Solver.makeSolver(this);
+        outOnly = getOptions().getBooleanOrDefault("out-only", false);
+        batch = getOptions().getBooleanOrDefault("batch", false);
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        if (batch) {
+            return BatchSolver.submit(ir, cfg, getId(), this);
+        }
+        return solver.solve(cfg, outOnly);
     }
 
     /**
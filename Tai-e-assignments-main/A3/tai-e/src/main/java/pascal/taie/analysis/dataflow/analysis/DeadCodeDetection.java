@@ -52,8 +52,14 @@ public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Whether detect dead code by {@link DeadCodeDetector}.
+     */
+    private final boolean bitset;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        bitset = getOptions().getBooleanOrDefault("bitset", false);
     }
 
     @Override
@@ -66,6 +72,14 @@ public class DeadCodeDetection extends MethodAnalysis {
         // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars =
                 ir.getResult(LiveVariableAnalysis.ID);
+        // obtain executable edges if constants are propagated conditionally
+        Set<Edge<Stmt>> executableEdges =
+                ir.getResult(ConstantPropagation.EXECUTABLE_EDGES,
+                        (Set<Edge<Stmt>>) null);
+        if (bitset || executableEdges != null) {
+            return new DeadCodeDetector(cfg, constants, liveVars,
+                    executableEdges).detect();
+        }
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // TODO - finish me
@@ -154,7 +168,7 @@ public class DeadCodeDetection extends MethodAnalysis {
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
-    private static boolean hasNoSideEffect(RValue rvalue) {
+    static boolean hasNoSideEffect(RValue rvalue) {
         // new expression modifies the heap
         if (rvalue instanceof NewExp ||
                 // cast may trigger ClassCastException
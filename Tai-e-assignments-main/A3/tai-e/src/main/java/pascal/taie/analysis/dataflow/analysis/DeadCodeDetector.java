@@ -0,0 +1,186 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.IndexedCFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Detects the same dead code as {@link DeadCodeDetection}, with the states
+ * of the traversal kept in plain arrays indexed by {@link Stmt#getIndex()}:
+ * <ul>
+ *     <li>the reached stmts and the dead assignments are bitsets,
+ *     and the work-list is an int array, in which each stmt is
+ *     enqueued at most once;</li>
+ *     <li>the condition of each if stmt is evaluated once;</li>
+ *     <li>the out edges are iterated in the arrays of {@link IndexedCFG};</li>
+ *     <li>the dead code is emitted in one pass over the indexes,
+ *     so that it needs no sorting.</li>
+ * </ul>
+ * A detector only accesses the states of one method, thus the detectors
+ * of different methods can run in parallel.
+ */
+final class DeadCodeDetector {
+
+    private final IndexedCFG cfg;
+
+    private final DataflowResult<Stmt, CPFact> constants;
+
+    private final DataflowResult<Stmt, SetFact<Var>> liveVars;
+
+    /**
+     * Executable edges computed by conditional constant propagation,
+     * or null if they are not available.
+     */
+    private final Set<Edge<Stmt>> executableEdges;
+
+    private final IR ir;
+
+    private final BitSet reached;
+
+    private final BitSet deadAssigns;
+
+    private final int[] queue;
+
+    private int tail;
+
+    DeadCodeDetector(CFG<Stmt> cfg,
+                     DataflowResult<Stmt, CPFact> constants,
+                     DataflowResult<Stmt, SetFact<Var>> liveVars,
+                     Set<Edge<Stmt>> executableEdges) {
+        this.cfg = IndexedCFG.of(cfg);
+        this.constants = constants;
+        this.liveVars = liveVars;
+        this.executableEdges = executableEdges;
+        this.ir = cfg.getIR();
+        int capacity = this.cfg.getNumberOfNodes();
+        this.reached = new BitSet(capacity);
+        this.deadAssigns = new BitSet(capacity);
+        this.queue = new int[capacity];
+    }
+
+    /**
+     * @return the dead code, in the order of indexes of stmts.
+     */
+    Set<Stmt> detect() {
+        reach(cfg.getEntry());
+        for (int head = 0; head < tail; ++head) {
+            visit(queue[head]);
+        }
+        Set<Stmt> deadCode = new LinkedHashSet<>();
+        for (int i = 0; i < ir.getStmts().size(); ++i) {
+            if (!reached.get(i) || deadAssigns.get(i)) {
+                deadCode.add(ir.getStmt(i));
+            }
+        }
+        return deadCode;
+    }
+
+    private void reach(int index) {
+        if (!reached.get(index)) {
+            reached.set(index);
+            queue[tail++] = index;
+        }
+    }
+
+    /**
+     * Reaches the successors of given stmt along the feasible edges.
+     */
+    private void visit(int index) {
+        Stmt stmt = cfg.getNode(index);
+        int start = cfg.getOutStart(index);
+        int end = cfg.getOutEnd(index);
+        if (executableEdges != null &&
+                (stmt instanceof If || stmt instanceof SwitchStmt)) {
+            // the branches have been resolved by constant propagation
+            for (int pos = start; pos < end; ++pos) {
+                if (executableEdges.contains(cfg.getOutEdge(pos))) {
+                    reach(cfg.getOutTarget(pos));
+                }
+            }
+            return;
+        }
+        if (stmt instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), constants.getResult(ifStmt));
+            if (cond.isConstant()) {
+                Edge.Kind taken = switch (cond.getConstant()) {
+                    case 1 -> Edge.Kind.IF_TRUE;
+                    case 0 -> Edge.Kind.IF_FALSE;
+                    default -> null;
+                };
+                for (int pos = start; pos < end; ++pos) {
+                    if (cfg.getOutKind(pos) == taken) {
+                        reach(cfg.getOutTarget(pos));
+                    }
+                }
+                return;
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value value = constants.getResult(switchStmt).get(switchStmt.getVar());
+            if (value.isConstant()) {
+                int caseValue = value.getConstant();
+                Edge.Kind taken = switchStmt.getCaseValues().contains(caseValue) ?
+                        Edge.Kind.SWITCH_CASE : Edge.Kind.SWITCH_DEFAULT;
+                for (int pos = start; pos < end; ++pos) {
+                    if (cfg.getOutKind(pos) == taken && (taken == Edge.Kind.SWITCH_DEFAULT
+                            || cfg.getOutEdge(pos).getCaseValue() == caseValue)) {
+                        reach(cfg.getOutTarget(pos));
+                    }
+                }
+                return;
+            }
+        } else if (stmt instanceof AssignStmt<?, ?> assign &&
+                assign.getLValue() instanceof Var var) {
+            if (DeadCodeDetection.hasNoSideEffect(assign.getRValue()) &&
+                    !liveVars.getResult(assign).contains(var)) {
+                deadAssigns.set(index);
+            }
+            for (int pos = start; pos < end; ++pos) {
+                reach(cfg.getOutTarget(pos));
+            }
+            return;
+        }
+        for (int pos = start; pos < end; ++pos) {
+            if (cfg.getOutKind(pos) != Edge.Kind.CAUGHT_EXCEPTION) {
+                reach(cfg.getOutTarget(pos));
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Solver of conditional constant propagation in the style of Wegman and
+ * Zadeck, which tracks the executability of CFG edges together with
+ * the constants:
+ * <ul>
+ *     <li>the in fact of a stmt only meets the out facts along
+ *     executable in edges, so that the facts from branches never taken
+ *     are not merged;</li>
+ *     <li>the out edges of an if (switch) stmt become executable only if
+ *     they may be taken under the value of the condition (switch variable),
+ *     which is computed from the constants, and the out edges of other
+ *     stmts become executable once the stmts are reached.</li>
+ * </ul>
+ * An int condition whose value is still undefined enables no edges, as
+ * its value is undefined only if its definitions are not executable.
+ * The facts are propagated on the CFG, as the IR is not in SSA form.
+ */
+class ConditionalSolver {
+
+    private final ConstantPropagation analysis;
+
+    private final CFG<Stmt> cfg;
+
+    private final IndexedDataflowResult<Stmt, CPFact> result;
+
+    private final Set<Edge<Stmt>> executableEdges = Sets.newSet();
+
+    ConditionalSolver(ConstantPropagation analysis, CFG<Stmt> cfg) {
+        this.analysis = analysis;
+        this.cfg = cfg;
+        // the entry and exit nodes are indexed right after the stmts in IR
+        this.result = new IndexedDataflowResult<>(
+                cfg.getIR().getStmts().size() + 2, Stmt::getIndex);
+    }
+
+    DataflowResult<Stmt, CPFact> solve(boolean outOnly) {
+        for (Stmt node : cfg) {
+            if (cfg.isEntry(node)) {
+                result.setInFact(node, analysis.newBoundaryFact(cfg));
+                result.setOutFact(node, analysis.newBoundaryFact(cfg));
+            } else {
+                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact());
+            }
+        }
+        Queue<Stmt> workList = new ArrayDeque<>();
+        workList.add(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            boolean changed = false;
+            if (!cfg.isEntry(node)) {
+                CPFact in = result.getInFact(node);
+                cfg.getInEdgesOf(node)
+                        .stream()
+                        .filter(executableEdges::contains)
+                        .forEach(edge -> analysis.meetInto(
+                                result.getOutFact(edge.getSource()), in));
+                changed = analysis.transferNode(node, in, result.getOutFact(node));
+            }
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                if (isFeasible(node, edge) &&
+                        (executableEdges.add(edge) || changed)) {
+                    workList.add(edge.getTarget());
+                }
+            }
+        }
+        if (outOnly) {
+            result.dropInFacts(this::computeInFact);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the given out edge of node may be taken, otherwise false.
+     */
+    private boolean isFeasible(Stmt node, Edge<Stmt> edge) {
+        CPFact in = result.getInFact(node);
+        if (node instanceof If ifStmt) {
+            ConditionExp cond = ifStmt.getCondition();
+            Value value = ConstantPropagation.evaluate(cond, in);
+            if (value.isConstant()) {
+                return edge.getKind() == (value.getConstant() == 1 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+            }
+            return !(value.isUndef() &&
+                    ConstantPropagation.canHoldInt(cond.getOperand1()) &&
+                    ConstantPropagation.canHoldInt(cond.getOperand2()));
+        } else if (node instanceof SwitchStmt switchStmt) {
+            Value value = in.get(switchStmt.getVar());
+            if (value.isConstant()) {
+                int caseValue = value.getConstant();
+                return switchStmt.getCaseValues().contains(caseValue) ?
+                        edge.isSwitchCase() && edge.getCaseValue() == caseValue :
+                        edge.getKind() == Edge.Kind.SWITCH_DEFAULT;
+            }
+            return !value.isUndef();
+        }
+        return true;
+    }
+
+    private CPFact computeInFact(Stmt node) {
+        if (cfg.isEntry(node)) {
+            return analysis.newBoundaryFact(cfg);
+        }
+        CPFact in = analysis.newInitialFact();
+        cfg.getInEdgesOf(node)
+                .stream()
+                .filter(executableEdges::contains)
+                .forEach(edge -> analysis.meetInto(
+                        result.getOutFact(edge.getSource()), in));
+        return in;
+    }
+
+    /**
+     * @return the executable edges of the CFG.
+     */
+    Set<Edge<Stmt>> getExecutableEdges() {
+        return Collections.unmodifiableSet(executableEdges);
+    }
+}
@@ -24,7 +24,9 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.ArithmeticExp;
@@ -46,8 +48,32 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Key of the executable CFG edges computed by conditional
+     * constant propagation, which are stored in IR.
+     */
+    public static final String EXECUTABLE_EDGES = "constprop-executable-edges";
+
+    /**
+     * If true, propagates constants only along the executable edges.
+     */
+    private final boolean conditional;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        conditional = getOptions().getBooleanOrDefault("conditional", false);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (!conditional) {
+            return super.analyze(ir);
+        }
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        ConditionalSolver solver = new ConditionalSolver(this, cfg);
+        DataflowResult<Stmt, CPFact> result = solver.solve(outOnly);
+        ir.storeResult(EXECUTABLE_EDGES, solver.getExecutableEdges());
+        return result;
     }
 
     @Override
@@ -0,0 +1,105 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link DataflowResult} which stores the facts in plain arrays indexed
+ * by the ids of nodes, e.g., {@link pascal.taie.ir.stmt.Stmt#getIndex()}
+ * for the nodes of a stmt CFG. Compared with the hash maps used by
+ * {@link DataflowResult}, this avoids the map entries for every node.
+ * <p>
+ * The in facts can be dropped by {@link #dropInFacts(Function)}
+ * after the data-flow problem has been solved, and then they are
+ * recomputed from the out facts on demand.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private final ToIntFunction<Node> indexer;
+
+    /**
+     * In facts, or null if the in facts have been dropped.
+     */
+    private Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    /**
+     * Computes the in fact of a node after the in facts are dropped.
+     */
+    private Function<Node, Fact> inFactComputer;
+
+    /**
+     * @param capacity number of nodes, i.e., the ids of the nodes
+     *                 are in [0, capacity)
+     * @param indexer  the function that maps each node to its id
+     */
+    public IndexedDataflowResult(int capacity, ToIntFunction<Node> indexer) {
+        this.indexer = indexer;
+        this.inFacts = new Object[capacity];
+        this.outFacts = new Object[capacity];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Node node) {
+        if (inFacts != null) {
+            return (Fact) inFacts[indexer.applyAsInt(node)];
+        }
+        return inFactComputer.apply(node);
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        if (inFacts == null) {
+            throw new IllegalStateException("In facts have been dropped");
+        }
+        inFacts[indexer.applyAsInt(node)] = fact;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Node node) {
+        return (Fact) outFacts[indexer.applyAsInt(node)];
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        outFacts[indexer.applyAsInt(node)] = fact;
+    }
+
+    /**
+     * Drops the in facts of all nodes, so that only the out facts are kept.
+     * After that, the in facts are computed by {@code inFactComputer}
+     * on demand, and they can no longer be set.
+     */
+    public void dropInFacts(Function<Node, Fact> inFactComputer) {
+        this.inFacts = null;
+        this.inFactComputer = inFactComputer;
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Solves several data-flow analyses on the same CFG in one traversal.
+ * <p>
+ * The analyses are submitted one by one, and each submission returns
+ * a placeholder result, which is published under the ID of the analysis
+ * as usual. When any of the placeholders is queried for the first time,
+ * all analyses submitted so far are solved together:
+ * <ul>
+ *     <li>the adjacency of the CFG is converted to int arrays, and the
+ *     nodes are ordered in reverse post-order, only once for all analyses;
+ *     </li>
+ *     <li>each analysis has its own work-list, which is a bitset over
+ *     the node order (reversed for backward analyses), and the analyses
+ *     take turns to process one node, so that they traverse the CFG
+ *     together.</li>
+ * </ul>
+ * The solved results then replace the placeholders in IR.
+ *
+ * @param <Node> type of CFG nodes
+ */
+public class BatchSolver<Node> {
+
+    /**
+     * Key of the pending batch stored in IR.
+     */
+    private static final String KEY = "dataflow-batch";
+
+    private final IR ir;
+
+    private final CFG<Node> cfg;
+
+    private final List<Problem<Node, ?>> problems = new ArrayList<>();
+
+    private boolean solved;
+
+    private BatchSolver(IR ir, CFG<Node> cfg) {
+        this.ir = ir;
+        this.cfg = cfg;
+    }
+
+    /**
+     * Submits an analysis to the pending batch of given IR.
+     *
+     * @param id  ID of the analysis, under which the solved result
+     *            is published
+     * @param cfg control-flow graph where the analysis is performed on
+     * @return a placeholder of the result, which solves the batch on demand
+     */
+    public static <Node, Fact> DataflowResult<Node, Fact> submit(
+            IR ir, CFG<Node> cfg, String id, DataflowAnalysis<Node, Fact> analysis) {
+        BatchSolver<Node> batch = ir.getResult(KEY, () -> new BatchSolver<>(ir, cfg));
+        synchronized (batch) {
+            if (batch.solved || batch.cfg != cfg) {
+                // start a new batch for the analyses submitted afterwards
+                batch = new BatchSolver<>(ir, cfg);
+                ir.storeResult(KEY, batch);
+            }
+            return batch.add(id, analysis);
+        }
+    }
+
+    private <Fact> DataflowResult<Node, Fact> add(
+            String id, DataflowAnalysis<Node, Fact> analysis) {
+        Problem<Node, Fact> problem = new Problem<>(id, analysis);
+        problems.add(problem);
+        return new BatchedResult<>(problem);
+    }
+
+    private synchronized void solve() {
+        if (solved) {
+            return;
+        }
+        solved = true;
+        // convert the CFG to int arrays
+        ToIntFunction<Node> indexer = getIndexer();
+        int n = cfg.getNumberOfNodes();
+        Object[] nodes = new Object[n];
+        int[][] preds = new int[n][];
+        int[][] succs = new int[n][];
+        for (Node node : cfg) {
+            int i = indexer.applyAsInt(node);
+            nodes[i] = node;
+            preds[i] = cfg.getPredsOf(node).stream().mapToInt(indexer).toArray();
+            succs[i] = cfg.getSuccsOf(node).stream().mapToInt(indexer).toArray();
+        }
+        int[] order = computeReversePostOrder(indexer.applyAsInt(cfg.getEntry()), succs);
+        int[] rank = new int[n];
+        for (int r = 0; r < n; ++r) {
+            rank[order[r]] = r;
+        }
+        for (Problem<Node, ?> problem : problems) {
+            problem.initialize(cfg, nodes, indexer, order, rank);
+        }
+        // let the analyses take turns until all reach the fixed point
+        boolean active = true;
+        while (active) {
+            active = false;
+            for (Problem<Node, ?> problem : problems) {
+                active |= problem.step(preds, succs);
+            }
+        }
+        for (Problem<Node, ?> problem : problems) {
+            ir.storeResult(problem.id, problem.result);
+        }
+    }
+
+    /**
+     * For a CFG of stmts, the nodes are indexed by {@link Stmt#getIndex()},
+     * otherwise, they are indexed in the iteration order.
+     */
+    private ToIntFunction<Node> getIndexer() {
+        if (cfg.getEntry() instanceof Stmt) {
+            return node -> ((Stmt) node).getIndex();
+        }
+        Map<Node, Integer> indexes = Maps.newMap(cfg.getNumberOfNodes());
+        cfg.forEach(node -> indexes.put(node, indexes.size()));
+        return indexes::get;
+    }
+
+    /**
+     * @return the indexes of nodes in reverse post-order from the entry,
+     * followed by the nodes which are unreachable from the entry.
+     */
+    private static int[] computeReversePostOrder(int entry, int[][] succs) {
+        int n = succs.length;
+        int[] order = new int[n];
+        int pos = n;
+        BitSet visited = new BitSet(n);
+        int[] stack = new int[n];
+        int[] next = new int[n]; // next successor to visit of each node
+        int top = 0;
+        stack[top++] = entry;
+        visited.set(entry);
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (next[node] < succs[node].length) {
+                int succ = succs[node][next[node]++];
+                if (!visited.get(succ)) {
+                    visited.set(succ);
+                    stack[top++] = succ;
+                }
+            } else {
+                order[--pos] = node;
+                --top;
+            }
+        }
+        // move the reachable nodes to the front, and append the others
+        int reachable = n - pos;
+        System.arraycopy(order, pos, order, 0, reachable);
+        for (int i = visited.nextClearBit(0), r = reachable; i < n;
+             i = visited.nextClearBit(i + 1)) {
+            order[r++] = i;
+        }
+        return order;
+    }
+
+    /**
+     * State of an analysis in the batch.
+     */
+    private static final class Problem<Node, Fact> {
+
+        private final String id;
+
+        private final DataflowAnalysis<Node, Fact> analysis;
+
+        private IndexedDataflowResult<Node, Fact> result;
+
+        private Object[] nodes;
+
+        private int[] order;
+
+        private int[] rank;
+
+        /**
+         * Nodes to be processed, indexed by their positions in the order
+         * of traversal of this analysis.
+         */
+        private BitSet workList;
+
+        private int cursor;
+
+        private Problem(String id, DataflowAnalysis<Node, Fact> analysis) {
+            this.id = id;
+            this.analysis = analysis;
+        }
+
+        private void initialize(CFG<Node> cfg, Object[] nodes,
+                                ToIntFunction<Node> indexer, int[] order, int[] rank) {
+            this.nodes = nodes;
+            this.order = order;
+            this.rank = rank;
+            int n = nodes.length;
+            result = new IndexedDataflowResult<>(n, indexer);
+            Node boundary = analysis.isForward() ? cfg.getEntry() : cfg.getExit();
+            for (Node node : cfg) {
+                if (node.equals(boundary)) {
+                    result.setInFact(node, analysis.newBoundaryFact(cfg));
+                    result.setOutFact(node, analysis.newBoundaryFact(cfg));
+                } else {
+                    result.setInFact(node, analysis.newInitialFact());
+                    result.setOutFact(node, analysis.newInitialFact());
+                }
+            }
+            workList = new BitSet(n);
+            workList.set(0, n);
+        }
+
+        /**
+         * Processes the next node in the work-list.
+         *
+         * @return false if the work-list is empty, otherwise true.
+         */
+        private boolean step(int[][] preds, int[][] succs) {
+            int pos = workList.nextSetBit(cursor);
+            if (pos < 0) {
+                pos = workList.nextSetBit(0);
+                if (pos < 0) {
+                    return false;
+                }
+            }
+            workList.clear(pos);
+            cursor = pos + 1;
+            int i = getIndex(pos);
+            Node node = getNode(i);
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            if (analysis.isForward()) {
+                for (int pred : preds[i]) {
+                    analysis.meetInto(result.getOutFact(getNode(pred)), in);
+                }
+                if (analysis.transferNode(node, in, out)) {
+                    for (int succ : succs[i]) {
+                        workList.set(getPosition(succ));
+                    }
+                }
+            } else {
+                for (int succ : succs[i]) {
+                    analysis.meetInto(result.getInFact(getNode(succ)), out);
+                }
+                if (analysis.transferNode(node, in, out)) {
+                    for (int pred : preds[i]) {
+                        workList.set(getPosition(pred));
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the position of given node in the order of traversal,
+         * which is reverse post-order for forward analysis, and
+         * post-order for backward analysis.
+         */
+        private int getPosition(int index) {
+            return analysis.isForward() ? rank[index] : order.length - 1 - rank[index];
+        }
+
+        private int getIndex(int position) {
+            return analysis.isForward() ? order[position] : order[order.length - 1 - position];
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node getNode(int index) {
+            return (Node) nodes[index];
+        }
+    }
+
+    /**
+     * Placeholder of the result of an analysis in the batch.
+     */
+    private class BatchedResult<Fact> extends DataflowResult<Node, Fact> {
+
+        private final Problem<Node, Fact> problem;
+
+        private BatchedResult(Problem<Node, Fact> problem) {
+            this.problem = problem;
+        }
+
+        private DataflowResult<Node, Fact> getSolved() {
+            solve();
+            return problem.result;
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            return getSolved().getInFact(node);
+        }
+
+        @Override
+        public void setInFact(Node node, Fact fact) {
+            getSolved().setInFact(node, fact);
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            return getSolved().getOutFact(node);
+        }
+
+        @Override
+        public void setOutFact(Node node, Fact fact) {
+            getSolved().setOutFact(node, fact);
+        }
+    }
+}
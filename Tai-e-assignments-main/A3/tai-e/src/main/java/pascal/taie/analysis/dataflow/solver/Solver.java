@@ -24,7 +24,9 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -56,8 +58,23 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        return solve(cfg, false);
+    }
+
+    /**
+     * Starts this solver on the given CFG.
+     *
+     * @param cfg     control-flow graph where the analysis is performed on
+     * @param outOnly if true, only the out facts are kept after solving,
+     *                and the in facts are recomputed from them on demand
+     * @return the analysis result
+     */
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg, boolean outOnly) {
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
+        if (outOnly && result instanceof IndexedDataflowResult<Node, Fact> indexed) {
+            indexed.dropInFacts(node -> computeInFact(cfg, indexed, node));
+        }
         return result;
     }
 
@@ -67,7 +84,7 @@ public abstract class Solver<Node, Fact> {
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -105,6 +122,44 @@ public abstract class Solver<Node, Fact> {
         }
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For a CFG of stmts,
+     * the facts are indexed by {@link Stmt#getIndex()}: the stmts in IR
+     * are indexed from 0, and the entry and exit nodes are indexed
+     * right after them.
+     */
+    private DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            int capacity = cfg.getIR().getStmts().size() + 2;
+            return new IndexedDataflowResult<>(capacity,
+                    node -> ((Stmt) node).getIndex());
+        }
+        return new DataflowResult<>();
+    }
+
+    /**
+     * Recomputes the in fact of given node from the out facts in
+     * the data-flow result, which has been solved.
+     */
+    private Fact computeInFact(CFG<Node> cfg, DataflowResult<Node, Fact> result, Node node) {
+        if (analysis.isForward()) {
+            if (cfg.isEntry(node)) {
+                return analysis.newBoundaryFact(cfg);
+            }
+            Fact in = analysis.newInitialFact();
+            cfg.getPredsOf(node).forEach(pred ->
+                    analysis.meetInto(result.getOutFact(pred), in));
+            return in;
+        } else {
+            if (cfg.isExit(node)) {
+                return analysis.newBoundaryFact(cfg);
+            }
+            Fact in = analysis.newInitialFact();
+            analysis.transferNode(node, in, result.getOutFact(node));
+            return in;
+        }
+    }
+
     /**
      * Solves the data-flow problem for given CFG.
      */
@@ -25,7 +25,10 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.IndexedCFG;
+import pascal.taie.ir.stmt.Stmt;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
@@ -35,8 +38,14 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
+        if (cfg.getEntry() instanceof Stmt)
+        {
+            doSolveForward(IndexedCFG.of((CFG<Stmt>) cfg), result);
+            return;
+        }
         LinkedList<Node> q = new LinkedList<>();
         for (Node node:cfg)
             q.addLast(node);
@@ -58,8 +67,14 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
+        if (cfg.getEntry() instanceof Stmt)
+        {
+            doSolveBackward(IndexedCFG.of((CFG<Stmt>) cfg), result);
+            return;
+        }
         LinkedList<Node> q = new LinkedList<>();
         for (Node node:cfg)
             q.addLast(node);
@@ -79,4 +94,109 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
         }
     }
+
+    /**
+     * Same as {@link #doSolveForward(CFG, DataflowResult)}, but iterates
+     * the edges in the arrays of {@link IndexedCFG}, and keeps the nodes
+     * to be processed in an int queue, in which each node appears at most once.
+     */
+    private void doSolveForward(IndexedCFG cfg, DataflowResult<Node, Fact> result)
+    {
+        IntQueue q = new IntQueue(cfg.getNumberOfNodes());
+        while (!q.isEmpty())
+        {
+            int i = q.poll();
+            Node node = getNode(cfg, i);
+            Fact in = result.getInFact(node);
+            for (int pos = cfg.getInStart(i); pos < cfg.getInEnd(i); ++pos)
+            {
+                analysis.meetInto(result.getOutFact(getNode(cfg, cfg.getInSource(pos))), in);
+            }
+
+            if (analysis.transferNode(node, in, result.getOutFact(node)))
+            {
+                for (int pos = cfg.getOutStart(i); pos < cfg.getOutEnd(i); ++pos)
+                    q.add(cfg.getOutTarget(pos));
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #doSolveBackward(CFG, DataflowResult)}, but iterates
+     * the edges in the arrays of {@link IndexedCFG}.
+     */
+    private void doSolveBackward(IndexedCFG cfg, DataflowResult<Node, Fact> result)
+    {
+        IntQueue q = new IntQueue(cfg.getNumberOfNodes());
+        while (!q.isEmpty())
+        {
+            int i = q.poll();
+            Node node = getNode(cfg, i);
+            Fact out = result.getOutFact(node);
+            for (int pos = cfg.getOutStart(i); pos < cfg.getOutEnd(i); ++pos)
+            {
+                analysis.meetInto(result.getInFact(getNode(cfg, cfg.getOutTarget(pos))), out);
+            }
+
+            if (analysis.transferNode(node, result.getInFact(node), out))
+            {
+                for (int pos = cfg.getInStart(i); pos < cfg.getInEnd(i); ++pos)
+                    q.add(cfg.getInSource(pos));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node getNode(IndexedCFG cfg, int index)
+    {
+        return (Node) cfg.getNode(index);
+    }
+
+    /**
+     * FIFO queue of node indexes, which initially contains all nodes,
+     * and ignores the nodes that are already in it.
+     */
+    private static class IntQueue
+    {
+        private final int[] elements;
+
+        private final BitSet contained;
+
+        private int head;
+
+        private int size;
+
+        private IntQueue(int capacity)
+        {
+            elements = new int[capacity];
+            contained = new BitSet(capacity);
+            for (int i = 0; i < capacity; ++i)
+                elements[i] = i;
+            contained.set(0, capacity);
+            size = capacity;
+        }
+
+        private boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        private void add(int i)
+        {
+            if (!contained.get(i))
+            {
+                contained.set(i);
+                elements[(head + size++) % elements.length] = i;
+            }
+        }
+
+        private int poll()
+        {
+            int i = elements[head];
+            head = (head + 1) % elements.length;
+            --size;
+            contained.clear(i);
+            return i;
+        }
+    }
 }
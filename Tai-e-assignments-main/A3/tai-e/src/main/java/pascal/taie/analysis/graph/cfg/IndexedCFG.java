@@ -0,0 +1,201 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+/**
+ * A frozen view of a CFG of stmts, which stores the edges in compressed
+ * sparse row (CSR) arrays indexed by {@link Stmt#getIndex()}: the stmts
+ * in IR are indexed from 0, and the entry and exit nodes are indexed
+ * right after them.
+ * <p>
+ * The in (out) edges of node {@code i} are at the positions in
+ * [{@link #getInStart}(i), {@link #getInEnd}(i)) of the in (out) edge
+ * arrays, and for each position, the other end, the kind and the edge
+ * object are stored in parallel arrays, so that the edges can be
+ * iterated without allocation.
+ */
+public final class IndexedCFG {
+
+    /**
+     * Key of the view stored in IR.
+     */
+    private static final String KEY = "cfg-indexed";
+
+    private final CFG<Stmt> cfg;
+
+    private final Stmt[] nodes;
+
+    private final int[] inOffsets;
+
+    private final int[] inSources;
+
+    private final Edge.Kind[] inKinds;
+
+    private final Edge<Stmt>[] inEdges;
+
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    private final Edge.Kind[] outKinds;
+
+    private final Edge<Stmt>[] outEdges;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private IndexedCFG(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        int n = cfg.getIR().getStmts().size() + 2;
+        nodes = new Stmt[n];
+        inOffsets = new int[n + 1];
+        outOffsets = new int[n + 1];
+        for (Stmt node : cfg) {
+            int i = node.getIndex();
+            nodes[i] = node;
+            inOffsets[i + 1] = cfg.getInDegreeOf(node);
+            outOffsets[i + 1] = cfg.getOutDegreeOf(node);
+        }
+        for (int i = 0; i < n; ++i) {
+            inOffsets[i + 1] += inOffsets[i];
+            outOffsets[i + 1] += outOffsets[i];
+        }
+        inSources = new int[inOffsets[n]];
+        inKinds = new Edge.Kind[inOffsets[n]];
+        inEdges = new Edge[inOffsets[n]];
+        outTargets = new int[outOffsets[n]];
+        outKinds = new Edge.Kind[outOffsets[n]];
+        outEdges = new Edge[outOffsets[n]];
+        for (Stmt node : nodes) {
+            int pos = inOffsets[node.getIndex()];
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(node)) {
+                inSources[pos] = edge.getSource().getIndex();
+                inKinds[pos] = edge.getKind();
+                inEdges[pos++] = edge;
+            }
+            pos = outOffsets[node.getIndex()];
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                outTargets[pos] = edge.getTarget().getIndex();
+                outKinds[pos] = edge.getKind();
+                outEdges[pos++] = edge;
+            }
+        }
+    }
+
+    /**
+     * @return the indexed view of given CFG, which is built once
+     * and then cached in the IR of the CFG.
+     */
+    public static IndexedCFG of(CFG<Stmt> cfg) {
+        IR ir = cfg.getIR();
+        IndexedCFG indexed = ir.getResult(KEY, () -> new IndexedCFG(cfg));
+        if (indexed.cfg != cfg) {
+            // the CFG has been rebuilt
+            indexed = new IndexedCFG(cfg);
+            ir.storeResult(KEY, indexed);
+        }
+        return indexed;
+    }
+
+    public CFG<Stmt> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return the number of nodes, including the entry and exit nodes.
+     */
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    public Stmt getNode(int index) {
+        return nodes[index];
+    }
+
+    public int getEntry() {
+        return cfg.getEntry().getIndex();
+    }
+
+    public int getExit() {
+        return cfg.getExit().getIndex();
+    }
+
+    /**
+     * @return the start position of the in edges of given node.
+     */
+    public int getInStart(int index) {
+        return inOffsets[index];
+    }
+
+    /**
+     * @return the end position (exclusive) of the in edges of given node.
+     */
+    public int getInEnd(int index) {
+        return inOffsets[index + 1];
+    }
+
+    /**
+     * @return the index of the source of the in edge at given position.
+     */
+    public int getInSource(int pos) {
+        return inSources[pos];
+    }
+
+    public Edge.Kind getInKind(int pos) {
+        return inKinds[pos];
+    }
+
+    public Edge<Stmt> getInEdge(int pos) {
+        return inEdges[pos];
+    }
+
+    /**
+     * @return the start position of the out edges of given node.
+     */
+    public int getOutStart(int index) {
+        return outOffsets[index];
+    }
+
+    /**
+     * @return the end position (exclusive) of the out edges of given node.
+     */
+    public int getOutEnd(int index) {
+        return outOffsets[index + 1];
+    }
+
+    /**
+     * @return the index of the target of the out edge at given position.
+     */
+    public int getOutTarget(int pos) {
+        return outTargets[pos];
+    }
+
+    public Edge.Kind getOutKind(int pos) {
+        return outKinds[pos];
+    }
+
+    public Edge<Stmt> getOutEdge(int pos) {
+        return outEdges[pos];
+    }
+}
@@ -25,37 +25,87 @@ package pascal.taie.analysis.dataflow.analysis;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class DeadCodeTest {
 
     void testDCD(String inputClass) {
+        testDCD(inputClass, "", "", "");
+    }
+
+    /**
+     * Tests given case with options appended to the options of
+     * dead code detection, live variable analysis and constant propagation.
+     */
+    void testDCD(String inputClass, String dcdOpts,
+                 String lvOpts, String cpOpts) {
+        List<String> opts = new ArrayList<>();
+        if (!dcdOpts.isEmpty()) {
+            opts.add(dcdOpts);
+        }
+        Collections.addAll(opts,
+                "-a", "livevar=strongly:false" + lvOpts,
+                "-a", "constprop=edge-refine:false" + cpOpts);
         Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
-                DeadCodeDetection.ID,
-                "-a", "livevar=strongly:false",
-                "-a", "constprop=edge-refine:false");
+                DeadCodeDetection.ID, opts.toArray(new String[0]));
     }
 
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
+        // the bitset engine must detect the same dead code
+        testDCD("ControlFlowUnreachable", "bitset:true", "", "");
+        // branches resolved by conditional constant propagation
+        testDCD("ControlFlowUnreachable", "", "", ";conditional:true");
+        // dead code is detected from the out facts only
+        testDCD("ControlFlowUnreachable", "", ";out-only:true", ";out-only:true");
+        // live variables and constants solved in one traversal
+        testDCD("ControlFlowUnreachable", "", ";batch:true", ";batch:true");
     }
 
     @Test
     public void testUnreachableIfBranch() {
         testDCD("UnreachableIfBranch");
+        testDCD("UnreachableIfBranch", "bitset:true", "", "");
+        testDCD("UnreachableIfBranch", "", "", ";conditional:true");
+        testDCD("UnreachableIfBranch", "", ";out-only:true", ";out-only:true");
+        testDCD("UnreachableIfBranch", "", ";batch:true", ";batch:true");
     }
 
     @Test
     public void testUnreachableSwitchBranch() {
         testDCD("UnreachableSwitchBranch");
+        testDCD("UnreachableSwitchBranch", "bitset:true", "", "");
+        testDCD("UnreachableSwitchBranch", "", "", ";conditional:true");
+        testDCD("UnreachableSwitchBranch", "", ";out-only:true", ";out-only:true");
+        testDCD("UnreachableSwitchBranch", "", ";batch:true", ";batch:true");
     }
 
     @Test
     public void testDeadAssignment() {
         testDCD("DeadAssignment");
+        testDCD("DeadAssignment", "bitset:true", "", "");
+        testDCD("DeadAssignment", "", "", ";conditional:true");
+        testDCD("DeadAssignment", "", ";out-only:true", ";out-only:true");
+        testDCD("DeadAssignment", "", ";batch:true", ";batch:true");
     }
 
     @Test
     public void testLoops() {
         testDCD("Loops");
+        testDCD("Loops", "bitset:true", "", "");
+        testDCD("Loops", "", "", ";conditional:true");
+        testDCD("Loops", "", ";out-only:true", ";out-only:true");
+        testDCD("Loops", "", ";batch:true", ";batch:true");
+    }
+
+    @Test
+    public void testConditionalConstants() {
+        // the second branch of ConditionalConstants depends on the value
+        // merged from the unreachable first branch, thus only conditional
+        // constant propagation finds it dead
+        testDCD("ConditionalConstants", "", "", ";conditional:true");
     }
 }
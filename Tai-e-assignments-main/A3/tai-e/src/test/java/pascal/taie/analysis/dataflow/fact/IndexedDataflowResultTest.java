@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedDataflowResultTest {
+
+    @Test
+    public void testDropInFacts() {
+        // nodes 0 -> 1 -> 2, where the in fact of a node is the out fact
+        // of its predecessor
+        IndexedDataflowResult<Integer, String> result =
+                new IndexedDataflowResult<>(3, Integer::intValue);
+        for (int node = 0; node < 3; ++node) {
+            result.setInFact(node, node == 0 ? "entry" : "out" + (node - 1));
+            result.setOutFact(node, "out" + node);
+        }
+        result.dropInFacts(node ->
+                node == 0 ? "entry" : result.getOutFact(node - 1));
+        for (int node = 0; node < 3; ++node) {
+            assertEquals("out" + node, result.getOutFact(node));
+        }
+        assertEquals("entry", result.getInFact(0));
+        assertEquals("out0", result.getInFact(1));
+        assertEquals("out1", result.getInFact(2));
+        // the dropped in facts can no longer be set
+        boolean thrown = false;
+        try {
+            result.setInFact(1, "in1");
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+}
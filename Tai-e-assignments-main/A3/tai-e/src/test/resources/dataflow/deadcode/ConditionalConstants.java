@@ -0,0 +1,17 @@
+class ConditionalConstants {
+
+    int branches() {
+        int x = 1;
+        int y = 0;
+        int z;
+        if (x < y) {
+            x = y; // unreachable branch
+        }
+        if (x > y) {
+            z = x;
+        } else {
+            z = y; // unreachable branch, only if x is known to be 1 here
+        }
+        return z;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts data-flow facts to and from bytes, so that the facts
+ * can be spilled out of memory by {@link SpillingDataflowResult}.
+ *
+ * @param <Method> type of methods, which the facts belong to
+ * @param <Fact>   type of data-flow facts
+ */
+public interface FactCodec<Method, Fact> {
+
+    /**
+     * Writes a fact of the nodes in given method.
+     */
+    void encode(Method method, Fact fact, DataOutput out) throws IOException;
+
+    /**
+     * Reads a fact written by {@link #encode} for the same method.
+     */
+    Fact decode(Method method, DataInput in) throws IOException;
+}
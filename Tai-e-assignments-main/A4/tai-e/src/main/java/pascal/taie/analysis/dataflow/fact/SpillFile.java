@@ -0,0 +1,203 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A temporary file which stores byte regions in memory-mapped segments.
+ * The capacity of each region is rounded up to a power of two, and a region
+ * can be rewritten in place if the new content fits in it. A region which
+ * is outgrown is put on the free list of its size class and reused by later
+ * allocations of that class. As a region is outgrown only when its content
+ * doubles, the outgrown regions of a growing content take less space than
+ * its current region, and thus the file does not grow with respills.
+ * The file is deleted when it is closed.
+ */
+class SpillFile {
+
+    /**
+     * Size of each mapped segment. A region larger than this
+     * gets a mapping of its own.
+     */
+    private static final int SEGMENT_SIZE = 1 << 26;
+
+    /**
+     * Size classes of the regions: a region of class c has capacity 2^c.
+     */
+    private static final int MIN_SIZE_CLASS = 6;
+
+    private static final int MAX_SIZE_CLASS = 30;
+
+    /**
+     * A region of bytes in the file.
+     */
+    static final class Region {
+
+        private final MappedByteBuffer segment;
+
+        private final int offset;
+
+        private final int capacity;
+
+        private int length;
+
+        private Region(MappedByteBuffer segment, int offset, int capacity) {
+            this.segment = segment;
+            this.offset = offset;
+            this.capacity = capacity;
+        }
+    }
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /**
+     * Regions which are no longer used, indexed by size class.
+     */
+    private final List<Deque<Region>> freeRegions = new ArrayList<>();
+
+    /**
+     * Position in the file right after the mapped segments.
+     */
+    private long fileEnd;
+
+    /**
+     * Position of free space in the last segment.
+     */
+    private int top = SEGMENT_SIZE;
+
+    SpillFile() {
+        try {
+            path = Files.createTempFile("tai-e-facts", ".bin");
+            path.toFile().deleteOnExit();
+            channel = FileChannel.open(path, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to create spill file", e);
+        }
+        for (int i = 0; i <= MAX_SIZE_CLASS; ++i) {
+            freeRegions.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Writes bytes to the file.
+     *
+     * @param region the region which held the previous content,
+     *               or null if there is no such region
+     * @return the region where the bytes are written.
+     */
+    Region write(Region region, byte[] bytes, int length) {
+        if (region == null || region.capacity < length) {
+            if (region != null) {
+                freeRegions.get(sizeClassOf(region.capacity)).push(region);
+            }
+            region = allocate(length);
+        }
+        region.segment.put(region.offset, bytes, 0, length);
+        region.length = length;
+        return region;
+    }
+
+    /**
+     * @return the content of given region.
+     */
+    byte[] read(Region region) {
+        byte[] bytes = new byte[region.length];
+        region.segment.get(region.offset, bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the size of the file in bytes.
+     */
+    long size() {
+        return fileEnd;
+    }
+
+    void close() {
+        segments.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to delete spill file " + path, e);
+        }
+    }
+
+    private Region allocate(int length) {
+        int sizeClass = sizeClassOf(length);
+        Region free = freeRegions.get(sizeClass).poll();
+        if (free != null) {
+            return free;
+        }
+        int capacity = 1 << sizeClass;
+        if (capacity > SEGMENT_SIZE) {
+            return new Region(map(capacity), 0, capacity);
+        }
+        if (top + capacity > SEGMENT_SIZE) {
+            segments.add(map(SEGMENT_SIZE));
+            top = 0;
+        }
+        Region region = new Region(segments.get(segments.size() - 1), top, capacity);
+        top += capacity;
+        return region;
+    }
+
+    /**
+     * @return the smallest size class whose capacity is at least {@code length}.
+     */
+    private static int sizeClassOf(int length) {
+        int sizeClass = Math.max(MIN_SIZE_CLASS,
+                32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1));
+        if (sizeClass > MAX_SIZE_CLASS) {
+            throw new AnalysisException("Spilled facts are too large: " + length + " bytes");
+        }
+        return sizeClass;
+    }
+
+    private MappedByteBuffer map(int size) {
+        try {
+            MappedByteBuffer segment = channel.map(
+                    FileChannel.MapMode.READ_WRITE, fileEnd, size);
+            fileEnd += size;
+            return segment;
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to map spill file " + path, e);
+        }
+    }
+}
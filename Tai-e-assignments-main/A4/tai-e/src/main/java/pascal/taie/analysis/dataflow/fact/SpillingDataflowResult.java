@@ -0,0 +1,306 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A {@link DataflowResult} which keeps the facts in memory only for
+ * the nodes of recently used methods, under a budget on the number of
+ * nodes. When the budget is exceeded, the facts of the least recently
+ * used methods are encoded by a {@link FactCodec} and spilled to
+ * a memory-mapped {@link SpillFile}, and they are decoded back when
+ * any of them is accessed again.
+ * <p>
+ * As the facts are mutable, a fact must not be spilled while a client
+ * still modifies it. Thus, while this result is pinned (during solving),
+ * facts are only spilled by {@link #trim()} and by the setters, which
+ * never spill the method accessed last; after the result is unpinned,
+ * the getters also spill facts, as the facts are only read then.
+ * <p>
+ * The spill file is deleted by {@link #close()}, or when this result
+ * becomes unreachable, e.g., when the results of the analysis have been
+ * processed and the world is reset.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of nodes
+ * @param <Fact>   type of data-flow facts
+ */
+public class SpillingDataflowResult<Method, Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Facts of the nodes of a method.
+     */
+    private final class Block {
+
+        private final Method method;
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        /**
+         * In and out facts of the nodes, at position 2i and 2i+1
+         * for the i-th node, or null if the facts are spilled.
+         */
+        private List<Fact> facts = new ArrayList<>();
+
+        private SpillFile.Region region;
+
+        private Block(Method method) {
+            this.method = method;
+        }
+    }
+
+    /**
+     * Block of a node and the position of the node in the block.
+     */
+    private final class Position {
+
+        private final Block block;
+
+        private final int index;
+
+        private Position(Block block, int index) {
+            this.block = block;
+            this.index = index;
+        }
+    }
+
+    private final Function<Node, Method> methodOf;
+
+    private final FactCodec<Method, Fact> codec;
+
+    private final int budget;
+
+    private final Map<Method, Block> blocks = Maps.newMap();
+
+    /**
+     * Position of each node in the block of its method. The block is
+     * kept here as {@link #methodOf} may no longer know the method of
+     * a node later, e.g., after a lazy ICFG has forgotten the node.
+     */
+    private final Map<Node, Position> positions = Maps.newMap();
+
+    /**
+     * Blocks whose facts are in memory, in access order.
+     */
+    private final LinkedHashMap<Method, Block> resident =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of nodes in the resident blocks.
+     */
+    private int residentNodes;
+
+    private SpillFile file;
+
+    /**
+     * Closes {@link #file} when this result becomes unreachable.
+     */
+    private Cleaner.Cleanable cleanable;
+
+    private boolean pinned = true;
+
+    private int nSpills;
+
+    private int nReloads;
+
+    /**
+     * @param methodOf function that returns the method containing a node
+     * @param budget   max number of nodes whose facts are kept in memory
+     */
+    public SpillingDataflowResult(Function<Node, Method> methodOf,
+                                  FactCodec<Method, Fact> codec, int budget) {
+        this.methodOf = methodOf;
+        this.codec = codec;
+        this.budget = budget;
+    }
+
+    @Override
+    public synchronized Fact getInFact(Node node) {
+        return getFact(node, 0);
+    }
+
+    @Override
+    public synchronized void setInFact(Node node, Fact fact) {
+        setFact(node, 0, fact);
+    }
+
+    @Override
+    public synchronized Fact getOutFact(Node node) {
+        return getFact(node, 1);
+    }
+
+    @Override
+    public synchronized void setOutFact(Node node, Fact fact) {
+        setFact(node, 1, fact);
+    }
+
+    /**
+     * If {@code pinned} is false, the getters may also spill facts.
+     */
+    public synchronized void setPinned(boolean pinned) {
+        this.pinned = pinned;
+        if (!pinned) {
+            trim();
+        }
+    }
+
+    /**
+     * Spills the facts of least recently used methods until the facts
+     * in memory are within the budget. The client must not hold any
+     * fact that it will modify when calling this method.
+     */
+    public synchronized void trim() {
+        spill(null);
+    }
+
+    /**
+     * @return a summary of the spills and reloads of the facts,
+     * and of the facts in memory.
+     */
+    public synchronized String getStatistics() {
+        return String.format("%d spills, %d reloads, %d/%d nodes in memory",
+                nSpills, nReloads, residentNodes, positions.size());
+    }
+
+    /**
+     * Deletes the spill file. The spilled facts are no longer available.
+     */
+    public synchronized void close() {
+        if (file != null) {
+            cleanable.clean();
+            cleanable = null;
+            file = null;
+        }
+    }
+
+    private Fact getFact(Node node, int kind) {
+        Position pos = positions.get(node);
+        if (pos == null) {
+            return null;
+        }
+        Block block = load(pos.block);
+        if (!pinned) {
+            spill(block);
+        }
+        return block.facts.get(2 * pos.index + kind);
+    }
+
+    private void setFact(Node node, int kind, Fact fact) {
+        Position pos = positions.get(node);
+        if (pos == null) {
+            Method method = methodOf.apply(node);
+            if (method == null) {
+                throw new AnalysisException("Unknown method of " + node);
+            }
+            Block block = load(blocks.computeIfAbsent(method, Block::new));
+            pos = new Position(block, block.nodes.size());
+            positions.put(node, pos);
+            block.nodes.add(node);
+            block.facts.add(null);
+            block.facts.add(null);
+            ++residentNodes;
+        }
+        Block block = load(pos.block);
+        block.facts.set(2 * pos.index + kind, fact);
+        spill(block);
+    }
+
+    /**
+     * Makes the facts of given block resident in memory.
+     */
+    private Block load(Block block) {
+        if (block.facts == null) {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(file.read(block.region)));
+            try {
+                List<Fact> facts = new ArrayList<>(2 * block.nodes.size());
+                for (int i = 0; i < 2 * block.nodes.size(); ++i) {
+                    facts.add(in.readBoolean() ? codec.decode(block.method, in) : null);
+                }
+                block.facts = facts;
+            } catch (IOException e) {
+                throw new AnalysisException("Failed to reload facts of " + block.method, e);
+            }
+            residentNodes += block.nodes.size();
+            ++nReloads;
+        }
+        resident.put(block.method, block);
+        return block;
+    }
+
+    /**
+     * Spills the least recently used blocks, except {@code keep},
+     * until the facts in memory are within the budget.
+     */
+    private void spill(Block keep) {
+        Iterator<Block> it = resident.values().iterator();
+        while (residentNodes > budget && it.hasNext()) {
+            Block block = it.next();
+            if (block != keep) {
+                it.remove();
+                write(block);
+            }
+        }
+    }
+
+    private void write(Block block) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (Fact fact : block.facts) {
+                out.writeBoolean(fact != null);
+                if (fact != null) {
+                    codec.encode(block.method, fact, out);
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to spill facts of " + block.method, e);
+        }
+        if (file == null) {
+            file = new SpillFile();
+            // the action must not refer to this result
+            cleanable = CLEANER.register(this, file::close);
+        }
+        block.region = file.write(block.region, bytes.toByteArray(), bytes.size());
+        block.facts = null;
+        residentNodes -= block.nodes.size();
+        ++nSpills;
+    }
+}
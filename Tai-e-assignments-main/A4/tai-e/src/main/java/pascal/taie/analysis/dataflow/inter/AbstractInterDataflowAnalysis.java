@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
@@ -49,8 +50,22 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     protected InterSolver<Method, Node, Fact> solver;
 
+    /**
+     * Whether solve the SCCs of the call graph in parallel.
+     */
+    private final boolean parallel;
+
+    /**
+     * Max number of nodes whose facts are kept in memory, or 0 if
+     * all facts are kept in memory.
+     */
+    private final int factBudget;
+
     public AbstractInterDataflowAnalysis(AnalysisConfig config) {
         super(config);
+        parallel = getOptions().getBooleanOrDefault("parallel", false);
+        factBudget = getOptions().get("fact-budget") != null ?
+                getOptions().getInt("fact-budget") : 0;
     }
 
     /**
@@ -60,6 +75,16 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     protected void initialize() {
     }
 
+    /**
+     * If the concrete analysis supports spilling its facts out of memory,
+     * then it should overwrite this method.
+     *
+     * @return the codec of the facts, or null if the facts cannot be spilled.
+     */
+    protected FactCodec<Method, Fact> getFactCodec() {
+        return null;
+    }
+
     /**
      * If the concrete analysis needs to perform some finishing work after
      * the solver finishes, then it can overwrite this method.
@@ -121,7 +146,13 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        solver = parallel ?
+                new InterSolver<>(this, icfg, Runtime.getRuntime().availableProcessors()) :
+                new InterSolver<>(this, icfg);
+        FactCodec<Method, Fact> codec = getFactCodec();
+        if (factBudget > 0 && codec != null) {
+            solver.setFactBudget(factBudget, codec);
+        }
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
@@ -0,0 +1,119 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact encoding of {@link CPFact}s. A fact is written as the number
+ * of its entries, followed by the variable and the value of each entry:
+ * <ul>
+ *     <li>a variable of the method which the fact belongs to is written
+ *     as its index in the IR, and a variable of another method is
+ *     written as its ID in a table kept by this codec;</li>
+ *     <li>NAC is written as 0, and constant c is written as c in zigzag
+ *     encoding plus 1 (UNDEF is never stored in {@link CPFact}).</li>
+ * </ul>
+ * All numbers are written as variable-length ints, so small indexes
+ * and constants take one byte.
+ */
+class CPFactCodec implements FactCodec<JMethod, CPFact> {
+
+    private final List<Var> foreignVars = new ArrayList<>();
+
+    private final Map<Var, Integer> foreignIds = Maps.newMap();
+
+    @Override
+    public void encode(JMethod method, CPFact fact, DataOutput out) throws IOException {
+        writeVarInt(out, fact.keySet().size());
+        for (Var var : fact.keySet()) {
+            if (var.getMethod() == method) {
+                writeVarInt(out, var.getIndex() << 1);
+            } else {
+                int id = foreignIds.computeIfAbsent(var, v -> {
+                    foreignVars.add(v);
+                    return foreignVars.size() - 1;
+                });
+                writeVarInt(out, id << 1 | 1);
+            }
+            Value value = fact.get(var);
+            if (value.isNAC()) {
+                writeVarInt(out, 0);
+            } else {
+                int c = value.getConstant();
+                writeVarInt(out, Integer.toUnsignedLong((c << 1) ^ (c >> 31)) + 1);
+            }
+        }
+    }
+
+    @Override
+    public CPFact decode(JMethod method, DataInput in) throws IOException {
+        CPFact fact = new CPFact();
+        int size = (int) readVarInt(in);
+        for (int i = 0; i < size; ++i) {
+            int ref = (int) readVarInt(in);
+            Var var = (ref & 1) == 0 ?
+                    method.getIR().getVar(ref >>> 1) :
+                    foreignVars.get(ref >>> 1);
+            long code = readVarInt(in);
+            if (code == 0) {
+                fact.update(var, Value.getNAC());
+            } else {
+                int zigzag = (int) (code - 1);
+                fact.update(var, Value.makeConstant((zigzag >>> 1) ^ -(zigzag & 1)));
+            }
+        }
+        return fact;
+    }
+
+    private static void writeVarInt(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarInt(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
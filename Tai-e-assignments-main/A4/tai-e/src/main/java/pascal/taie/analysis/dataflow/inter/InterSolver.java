@@ -22,15 +22,22 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.analysis.dataflow.fact.SpillingDataflowResult;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.SetQueue;
 
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -42,25 +49,82 @@ import java.util.stream.Collectors;
  */
 class InterSolver<Method, Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(InterSolver.class);
+
     private final InterDataflowAnalysis<Node, Fact> analysis;
 
     private final ICFG<Method, Node> icfg;
 
+    /**
+     * Number of threads to solve the analysis. If it is greater than 1,
+     * the SCCs of the call graph are solved in parallel by {@link SCCScheduler}.
+     */
+    private final int parallelism;
+
+    /**
+     * If greater than 0, the facts are kept in a {@link SpillingDataflowResult}
+     * with this budget.
+     */
+    private int factBudget;
+
+    private FactCodec<Method, Fact> factCodec;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, 1);
+    }
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, int parallelism) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Keeps the facts of at most {@code budget} nodes in memory,
+     * and spills the others by {@code codec}.
+     */
+    void setFactBudget(int budget, FactCodec<Method, Fact> codec) {
+        this.factBudget = budget;
+        this.factCodec = codec;
     }
 
     DataflowResult<Node, Fact> solve() {
-        result = new DataflowResult<>();
-        initialize();
-        doSolve();
-        return result;
+        result = factBudget > 0 ?
+                new SpillingDataflowResult<>(icfg::getContainingMethodOf,
+                        factCodec, factBudget) :
+                new DataflowResult<>();
+        if (icfg instanceof LazyICFG lazyICFG) {
+            solveLazily(lazyICFG);
+        } else {
+            initialize();
+            // workers of SCCScheduler hold facts which must not be spilled
+            if (parallelism > 1 && factBudget == 0) {
+                new SCCScheduler<>(analysis, icfg, result, parallelism).solve();
+            } else {
+                doSolve();
+            }
+        }
+        if (result instanceof SpillingDataflowResult<?, ?, ?> spilling) {
+            logger.info("Fact store: {}", spilling.getStatistics());
+            spilling.setPinned(false);
+        }
+        return icfg instanceof LazyICFG ? new LazyResult(result) : result;
+    }
+
+    /**
+     * Spills facts if they exceed the budget. This is called when
+     * the solver holds no facts.
+     */
+    private void trim() {
+        if (result instanceof SpillingDataflowResult<?, ?, ?> spilling) {
+            spilling.trim();
+        }
     }
 
     private void initialize() {
@@ -83,6 +147,7 @@ class InterSolver<Method, Node, Fact> {
             q.addLast(node);
         while (!q.isEmpty())
         {
+            trim();
             Node node = q.pollFirst();
             for (ICFGEdge<Node> icfgEdge: icfg.getInEdgesOf(node))
             {
@@ -97,4 +162,104 @@ class InterSolver<Method, Node, Fact> {
             }
         }
     }
+
+    /**
+     * Solves the analysis on a {@link LazyICFG}. Different from
+     * {@link #initialize()} and {@link #doSolve()}, this method starts from
+     * the entry methods and only visits the nodes reached by the work-list,
+     * so that the ICFG edges (and the facts) of a method are created
+     * when the method is first reached. When no node of a method is
+     * in the work-list, the edges of the method are released.
+     * The facts of the nodes that are never reached are absent
+     * in the result until they are read (see {@link LazyResult}).
+     */
+    private void solveLazily(LazyICFG lazyICFG) {
+        workList = new SetQueue<>();
+        Map<Method, Integer> pending = Maps.newMap();
+        icfg.entryMethods().forEach(method -> {
+            Node entry = icfg.getEntryOf(method);
+            result.setInFact(entry, analysis.newBoundaryFact(entry));
+            result.setOutFact(entry, analysis.newBoundaryFact(entry));
+            addToWorkList(entry, pending);
+            icfg.getSuccsOf(entry).forEach(succ -> addToWorkList(succ, pending));
+        });
+        while (!workList.isEmpty()) {
+            trim();
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            boolean isNew = in == null;
+            if (isNew) {
+                in = analysis.newInitialFact();
+                out = analysis.newInitialFact();
+                result.setInFact(node, in);
+                result.setOutFact(node, out);
+            }
+            for (ICFGEdge<Node> edge : icfg.getInEdgesOf(node)) {
+                Fact predOut = result.getOutFact(edge.getSource());
+                if (predOut != null) {
+                    analysis.meetInto(analysis.transferEdge(edge, predOut), in);
+                }
+            }
+            // successors of a new node must be visited at least once
+            if (analysis.transferNode(node, in, out) || isNew) {
+                icfg.getSuccsOf(node).forEach(succ -> addToWorkList(succ, pending));
+            }
+            Method method = icfg.getContainingMethodOf(node);
+            if (pending.merge(method, -1, Integer::sum) == 0) {
+                pending.remove(method);
+                lazyICFG.release((JMethod) method);
+            }
+        }
+    }
+
+    private void addToWorkList(Node node, Map<Method, Integer> pending) {
+        if (workList.add(node)) {
+            pending.merge(icfg.getContainingMethodOf(node), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Result of {@link #solveLazily(LazyICFG)}. The nodes that are never
+     * reached by the solver have no facts in the underlying result, and
+     * they are given initial facts when their facts are first read.
+     */
+    private class LazyResult extends DataflowResult<Node, Fact> {
+
+        private final DataflowResult<Node, Fact> facts;
+
+        private LazyResult(DataflowResult<Node, Fact> facts) {
+            this.facts = facts;
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            Fact fact = facts.getInFact(node);
+            if (fact == null) {
+                fact = analysis.newInitialFact();
+                facts.setInFact(node, fact);
+            }
+            return fact;
+        }
+
+        @Override
+        public void setInFact(Node node, Fact fact) {
+            facts.setInFact(node, fact);
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            Fact fact = facts.getOutFact(node);
+            if (fact == null) {
+                fact = analysis.newInitialFact();
+                facts.setOutFact(node, fact);
+            }
+            return fact;
+        }
+
+        @Override
+        public void setOutFact(Node node, Fact fact) {
+            facts.setOutFact(node, fact);
+        }
+    }
 }
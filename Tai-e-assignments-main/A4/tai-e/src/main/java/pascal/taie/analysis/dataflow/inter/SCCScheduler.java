@@ -0,0 +1,195 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Solves inter-procedural data-flow analysis on the SCCs of the call graph
+ * in parallel.
+ * <p>
+ * The SCCs are sorted topologically, and grouped into levels, where the
+ * level of an SCC is the length of the longest path to it from the
+ * SCCs without callers, so that there are no calls among the SCCs of
+ * the same level. The levels are solved one by one, and the SCCs of
+ * a level are solved in parallel on a fork/join pool. Each SCC has its
+ * own work-list, and a worker only modifies the facts of the nodes in its
+ * SCC, while the facts of other SCCs, which it reads over call and return
+ * edges, are not modified during the level. The nodes of other SCCs,
+ * whose in facts are affected by a worker, are added to the work-lists
+ * of their SCCs after the level is done. As facts also flow back to
+ * callers over return edges, the levels are solved round by round until
+ * all work-lists are empty.
+ * <p>
+ * This is still a work-list algorithm on the same monotone functions,
+ * which only changes the order of the nodes being processed,
+ * thus it reaches the same fixed point as {@link InterSolver}.
+ */
+class SCCScheduler<Method, Node, Fact> {
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final DataflowResult<Node, Fact> result;
+
+    private final int parallelism;
+
+    private final Map<Method, Component> componentOf = Maps.newMap();
+
+    /**
+     * Components grouped by their levels.
+     */
+    private final List<List<Component>> levels = new ArrayList<>();
+
+    /**
+     * @param result the result which has been initialized
+     */
+    SCCScheduler(InterDataflowAnalysis<Node, Fact> analysis,
+                 ICFG<Method, Node> icfg,
+                 DataflowResult<Node, Fact> result,
+                 int parallelism) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.result = result;
+        this.parallelism = parallelism;
+    }
+
+    void solve() {
+        decompose();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (List<Component> level : levels) {
+                    List<List<Node>> affected = pool.submit(() -> level.parallelStream()
+                                    .filter(component -> !component.workList.isEmpty())
+                                    .map(this::solve)
+                                    .toList())
+                            .join();
+                    // hand the affected nodes over to their components
+                    for (List<Node> nodes : affected) {
+                        for (Node node : nodes) {
+                            getComponentOf(node).workList.add(node);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Decomposes the call graph into components, and puts all nodes
+     * in the work-lists of their components.
+     */
+    private void decompose() {
+        CallGraph<Node, Method> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        SimpleGraph<Method> graph = new SimpleGraph<>();
+        callGraph.reachableMethods().forEach(method -> {
+            graph.addNode(method);
+            callGraph.getCalleesOfM(method)
+                    .forEach(callee -> graph.addEdge(method, callee));
+        });
+        MergedSCCGraph<Method> sccGraph = new MergedSCCGraph<>(graph);
+        Map<MergedNode<Method>, Integer> levelOf = Maps.newMap();
+        for (MergedNode<Method> scc : new TopoSorter<>(sccGraph).get()) {
+            int level = sccGraph.getPredsOf(scc)
+                    .stream()
+                    .mapToInt(pred -> levelOf.get(pred) + 1)
+                    .max()
+                    .orElse(0);
+            levelOf.put(scc, level);
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+            Component component = new Component();
+            scc.getNodes().forEach(method -> componentOf.put(method, component));
+            levels.get(level).add(component);
+        }
+        for (Node node : icfg) {
+            getComponentOf(node).workList.add(node);
+        }
+    }
+
+    private Component getComponentOf(Node node) {
+        return componentOf.get(icfg.getContainingMethodOf(node));
+    }
+
+    /**
+     * Solves the nodes in the work-list of given component.
+     *
+     * @return the nodes of other components whose in facts may be changed.
+     */
+    private List<Node> solve(Component component) {
+        List<Node> affected = new ArrayList<>();
+        Queue<Node> workList = component.workList;
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (ICFGEdge<Node> edge : icfg.getInEdgesOf(node)) {
+                analysis.meetInto(analysis.transferEdge(edge,
+                        result.getOutFact(edge.getSource())), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : icfg.getSuccsOf(node)) {
+                    if (getComponentOf(succ) == component) {
+                        workList.add(succ);
+                    } else {
+                        affected.add(succ);
+                    }
+                }
+            }
+        }
+        return affected;
+    }
+
+    private class Component {
+
+        /**
+         * Nodes of this component to be processed, which is only
+         * accessed by the worker of this component during a level.
+         */
+        private final Queue<Node> workList = new SetQueue<>();
+    }
+}
@@ -37,7 +37,7 @@ import java.util.*;
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
-    private ClassHierarchy hierarchy;
+    protected ClassHierarchy hierarchy;
 
     @Override
     public CallGraph<Invoke, JMethod> build() {
@@ -45,7 +45,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         return buildCallGraph(World.get().getMainMethod());
     }
 
-    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+    protected CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
         DefaultCallGraph callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
         // TODO - finish me
@@ -75,7 +75,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
-    private Set<JMethod> resolve(Invoke callSite) {
+    Set<JMethod> resolve(Invoke callSite) {
         // TODO - finish me
         Set<JMethod> methodSet = new HashSet<>();
         MethodRef methodRef = callSite.getMethodRef();
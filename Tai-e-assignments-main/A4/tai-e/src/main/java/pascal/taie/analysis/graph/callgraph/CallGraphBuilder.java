@@ -24,6 +24,7 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.ConfigException;
@@ -31,6 +32,7 @@ import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchyImpl;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.IndexedTypeSystem;
 
 import java.util.Collection;
 import java.util.Comparator;
@@ -48,16 +50,37 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     private final String algorithm;
 
+    /**
+     * Whether build the call graph in parallel (only for CHA).
+     */
+    private final boolean parallel;
+
+    /**
+     * Whether answer subtype queries by {@link IndexedTypeSystem}.
+     */
+    private final boolean subtypeIndex;
+
     public CallGraphBuilder(AnalysisConfig config) {
         super(config);
         algorithm = config.getOptions().getString("algorithm");
+        parallel = config.getOptions().getBooleanOrDefault("parallel", false);
+        subtypeIndex = config.getOptions().getBooleanOrDefault("subtype-index", false);
     }
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
+        if (subtypeIndex) {
+            installSubtypeIndex();
+        }
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = parallel ?
+                    new ParallelCHABuilder(Runtime.getRuntime().availableProcessors()) :
+                    new CHABuilder();
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder();
+        } else if (algorithm.equals("xta")) {
+            builder = new XTABuilder();
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
@@ -68,6 +91,18 @@ public class CallGraphBuilder extends ProgramAnalysis {
         return callGraph;
     }
 
+    /**
+     * Replaces the type system of the world by an {@link IndexedTypeSystem}
+     * built on the current class hierarchy, unless it is already installed.
+     */
+    private static void installSubtypeIndex() {
+        World world = World.get();
+        if (!(world.getTypeSystem() instanceof IndexedTypeSystem)) {
+            world.setTypeSystem(new IndexedTypeSystem(
+                    world.getTypeSystem(), world.getClassHierarchy()));
+        }
+    }
+
     private void takeAction(CallGraph<Invoke, JMethod> callGraph) {
         String action = getOptions().getString("action");
         if (action == null) {
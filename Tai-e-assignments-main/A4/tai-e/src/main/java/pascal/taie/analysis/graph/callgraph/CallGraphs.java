@@ -33,7 +33,9 @@ import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
 import pascal.taie.util.MapIDProvider;
@@ -73,6 +75,46 @@ public final class CallGraphs {
         return getCallKind(invoke.getInvokeExp());
     }
 
+    /**
+     * Looks up the target method of a virtual dispatch on an object whose
+     * runtime class is {@code jclass}. The superclasses of {@code jclass}
+     * are searched first, then its (super)interfaces for default methods.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    static JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            JMethod method = c.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+        }
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            for (JClass iface : c.getInterfaces()) {
+                JMethod method = dispatchDefault(iface, subsignature);
+                if (method != null) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static JMethod dispatchDefault(JClass iface, Subsignature subsignature) {
+        JMethod method = iface.getDeclaredMethod(subsignature);
+        if (method != null && !method.isAbstract()) {
+            return method;
+        }
+        for (JClass superIface : iface.getInterfaces()) {
+            method = dispatchDefault(superIface, subsignature);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
     /**
      * Dumps call graph to dot file.
      */
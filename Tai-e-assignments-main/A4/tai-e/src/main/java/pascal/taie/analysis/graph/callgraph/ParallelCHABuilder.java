@@ -0,0 +1,106 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel implementation of the CHA algorithm.
+ * The reachable methods are discovered level by level: the call sites of
+ * all methods of the current frontier are resolved in parallel on
+ * a fork/join pool, and then the resulting edges are added to the call
+ * graph in the order of the frontier, and the callees that have not been
+ * reached form the next frontier, which is sorted by method signature.
+ * Thus, the resulting call graph, including the order of its reachable
+ * methods and call edges, does not depend on thread scheduling, and its
+ * reachable methods and call edges are the same as {@link CHABuilder}'s.
+ */
+class ParallelCHABuilder extends CHABuilder {
+
+    private final int parallelism;
+
+    ParallelCHABuilder(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    protected CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        callGraph.addReachableMethod(entry);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<JMethod> frontier = List.of(entry);
+            while (!frontier.isEmpty()) {
+                List<JMethod> current = frontier;
+                List<List<Edge<Invoke, JMethod>>> edges = pool.submit(() ->
+                                current.parallelStream()
+                                        .map(this::resolveEdges)
+                                        .toList())
+                        .join();
+                List<JMethod> next = new ArrayList<>();
+                edges.forEach(batch -> batch.forEach(edge -> {
+                    callGraph.addEdge(edge);
+                    if (callGraph.addReachableMethod(edge.getCallee())) {
+                        next.add(edge.getCallee());
+                    }
+                }));
+                next.sort(Comparator.comparing(JMethod::getSignature));
+                frontier = next;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return callGraph;
+    }
+
+    /**
+     * Resolves the call sites in the given method. This is called by
+     * the worker threads, so that the IR of the methods of a frontier
+     * is built in parallel as well.
+     *
+     * @return the resulting call edges, in the order of the call sites.
+     */
+    private List<Edge<Invoke, JMethod>> resolveEdges(JMethod method) {
+        if (method.isAbstract()) {
+            return List.of();
+        }
+        List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof Invoke callSite) {
+                CallKind kind = CallGraphs.getCallKind(callSite);
+                for (JMethod callee : resolve(callSite)) {
+                    edges.add(new Edge<>(kind, callSite, callee));
+                }
+            }
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of Rapid Type Analysis (RTA).
+ * Compared with CHA, a virtual call is only dispatched to the classes
+ * that are instantiated in (currently) reachable methods. The call graph
+ * is updated incrementally: when a new class becomes instantiated,
+ * the virtual call sites seen so far are re-dispatched on that class.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private ClassHierarchy hierarchy;
+
+    private TypeSystem typeSystem;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Virtual and interface call sites in reachable methods, grouped by
+     * the declaring classes of their method references.
+     */
+    private MultiMap<JClass, Invoke> virtualCallSites;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        typeSystem = World.get().getTypeSystem();
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        callGraph = new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        virtualCallSites = Maps.newMultiMap();
+        callGraph.addEntryMethod(entry);
+        // the JVM creates the arguments of the entry method, e.g., String[]
+        entry.getParamTypes().forEach(this::instantiateParam);
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                processNewMethod(method);
+            }
+        }
+        return callGraph;
+    }
+
+    private void instantiateParam(Type type) {
+        instantiate(type);
+        if (type instanceof ArrayType arrayType) {
+            instantiateParam(arrayType.elementType());
+        }
+    }
+
+    /**
+     * Collects the classes instantiated in a new reachable method,
+     * and resolves the call sites in it.
+     */
+    private void processNewMethod(JMethod method) {
+        if (method.isAbstract()) {
+            return;
+        }
+        method.getIR().forEach(stmt -> {
+            if (stmt instanceof New newStmt) {
+                instantiate(newStmt.getRValue().getType());
+            } else if (stmt instanceof AssignLiteral assign &&
+                    assign.getRValue() instanceof ReferenceLiteral literal) {
+                // string and class constants are instantiated implicitly
+                instantiate(literal.getType());
+            }
+        });
+        callGraph.callSitesIn(method).forEach(this::processCallSite);
+    }
+
+    /**
+     * Marks the given type as instantiated, and dispatches the virtual
+     * call sites whose receivers may be of the new type.
+     */
+    private void instantiate(Type type) {
+        JClass jclass = getReceiverClass(type);
+        if (jclass == null || !instantiatedClasses.add(jclass)) {
+            return;
+        }
+        for (JClass supertype : getSupertypesOf(jclass)) {
+            for (Invoke callSite : virtualCallSites.get(supertype)) {
+                addCallEdge(callSite, CallGraphs.dispatch(jclass,
+                        callSite.getMethodRef().getSubsignature()));
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+        Subsignature subsignature = callSite.getMethodRef().getSubsignature();
+        switch (kind) {
+            case STATIC -> addCallEdge(callSite,
+                    declaringClass.getDeclaredMethod(subsignature));
+            case SPECIAL -> addCallEdge(callSite,
+                    CallGraphs.dispatch(declaringClass, subsignature));
+            case VIRTUAL, INTERFACE -> {
+                virtualCallSites.put(declaringClass, callSite);
+                for (JClass jclass : instantiatedClasses) {
+                    if (typeSystem.isSubtype(declaringClass.getType(), jclass.getType())) {
+                        addCallEdge(callSite, CallGraphs.dispatch(jclass, subsignature));
+                    }
+                }
+            }
+        }
+    }
+
+    private void addCallEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            if (!callGraph.contains(callee)) {
+                workList.add(callee);
+            }
+        }
+    }
+
+    /**
+     * @return the class used to dispatch calls on objects of given type.
+     * For array types, this is java.lang.Object; for other non-class
+     * types, returns null.
+     */
+    private JClass getReceiverClass(Type type) {
+        if (type instanceof ClassType classType) {
+            return classType.getJClass();
+        } else if (type instanceof ArrayType) {
+            return hierarchy.getJREClass(ClassNames.OBJECT);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @return the given class, its superclasses and all its
+     * (direct and indirect) superinterfaces.
+     */
+    private static List<JClass> getSupertypesOf(JClass jclass) {
+        Set<JClass> supertypes = Sets.newHybridOrderedSet();
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (supertypes.add(c)) {
+                if (c.getSuperClass() != null) {
+                    queue.add(c.getSuperClass());
+                }
+                queue.addAll(c.getInterfaces());
+            }
+        }
+        return List.copyOf(supertypes);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Catch;
+import pascal.taie.ir.stmt.FieldStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.ir.stmt.Throw;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of XTA call graph construction.
+ * Different from RTA, which keeps one set of instantiated types for
+ * the whole program, XTA keeps a set of types for each method and each
+ * field, and propagates types along calls, returns and field accesses,
+ * filtered by the declared types of parameters, return values and fields.
+ * A virtual call is dispatched only to the types that may flow to
+ * the method containing the call.
+ */
+class XTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    /**
+     * Program-wide type sets that are not attached to methods or fields.
+     */
+    private enum GlobalSet {
+        /**
+         * Types stored into (and loaded from) any array.
+         */
+        ARRAY_ELEMENTS,
+        /**
+         * Types of thrown (and caught) exceptions.
+         */
+        EXCEPTIONS,
+    }
+
+    /**
+     * Flow of types to {@code target}. If {@code filter} is not null,
+     * only the subtypes of {@code filter} can flow.
+     */
+    private record FlowEdge(Object target, Type filter) {
+    }
+
+    private record Entry(Object owner, Set<Type> types) {
+    }
+
+    private ClassHierarchy hierarchy;
+
+    private TypeSystem typeSystem;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> methodQueue;
+
+    private Queue<Entry> workList;
+
+    /**
+     * Type sets of methods, fields and {@link GlobalSet}s.
+     */
+    private Map<Object, Set<Type>> typeSets;
+
+    private MultiMap<Object, FlowEdge> flowEdges;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        typeSystem = World.get().getTypeSystem();
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        callGraph = new DefaultCallGraph();
+        methodQueue = new ArrayDeque<>();
+        workList = new ArrayDeque<>();
+        typeSets = Maps.newMap();
+        flowEdges = Maps.newMultiMap();
+        callGraph.addEntryMethod(entry);
+        // the JVM creates the arguments of the entry method, e.g., String[]
+        entry.getParamTypes().forEach(t -> addEntryParam(entry, t));
+        methodQueue.add(entry);
+        while (!methodQueue.isEmpty() || !workList.isEmpty()) {
+            if (!methodQueue.isEmpty()) {
+                JMethod method = methodQueue.poll();
+                if (callGraph.addReachableMethod(method)) {
+                    processNewMethod(method);
+                }
+            } else {
+                Entry item = workList.poll();
+                Set<Type> diff = propagate(item.owner(), item.types());
+                if (!diff.isEmpty()) {
+                    if (item.owner() instanceof JMethod method &&
+                            callGraph.contains(method)) {
+                        processVirtualCalls(method, diff);
+                    }
+                    flowEdges.get(item.owner()).forEach(edge ->
+                            addTypes(edge.target(), filter(diff, edge.filter())));
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    private void addEntryParam(JMethod entry, Type type) {
+        if (type instanceof ReferenceType) {
+            addTypes(entry, Set.of(type));
+            if (type instanceof ArrayType arrayType) {
+                addEntryParam(entry, arrayType.elementType());
+            }
+        }
+    }
+
+    /**
+     * Collects the types instantiated in a new reachable method, connects
+     * it to the fields and global sets it accesses, and resolves the call
+     * sites in it.
+     */
+    private void processNewMethod(JMethod method) {
+        if (method.isAbstract()) {
+            return;
+        }
+        method.getIR().forEach(stmt -> {
+            if (stmt instanceof New newStmt) {
+                addTypes(method, Set.of(newStmt.getRValue().getType()));
+            } else if (stmt instanceof AssignLiteral assign &&
+                    assign.getRValue() instanceof ReferenceLiteral literal &&
+                    literal.getType() instanceof ClassType) {
+                // string and class constants are instantiated implicitly
+                addTypes(method, Set.of(literal.getType()));
+            } else if (stmt instanceof LoadField load) {
+                JField field = resolveField(load);
+                if (field != null) {
+                    addFlowEdge(field, method, null);
+                }
+            } else if (stmt instanceof StoreField store) {
+                JField field = resolveField(store);
+                if (field != null) {
+                    addFlowEdge(method, field, field.getType());
+                }
+            } else if (stmt instanceof LoadArray load &&
+                    load.getLValue().getType() instanceof ReferenceType) {
+                addFlowEdge(GlobalSet.ARRAY_ELEMENTS, method, null);
+            } else if (stmt instanceof StoreArray store &&
+                    store.getRValue().getType() instanceof ReferenceType) {
+                addFlowEdge(method, GlobalSet.ARRAY_ELEMENTS, null);
+            } else if (stmt instanceof Throw throwStmt) {
+                addFlowEdge(method, GlobalSet.EXCEPTIONS,
+                        throwStmt.getExceptionRef().getType());
+            } else if (stmt instanceof Catch) {
+                addFlowEdge(GlobalSet.EXCEPTIONS, method, null);
+            }
+        });
+        callGraph.callSitesIn(method).forEach(callSite -> {
+            CallKind kind = CallGraphs.getCallKind(callSite);
+            JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+            switch (kind) {
+                case STATIC -> addCallEdge(callSite, declaringClass
+                        .getDeclaredMethod(callSite.getMethodRef().getSubsignature()));
+                case SPECIAL -> addCallEdge(callSite, CallGraphs.dispatch(
+                        declaringClass, callSite.getMethodRef().getSubsignature()));
+            }
+        });
+        processVirtualCalls(method, typeSets.getOrDefault(method, Set.of()));
+    }
+
+    /**
+     * Dispatches the virtual and interface call sites in {@code method}
+     * on the given types which flow to {@code method}.
+     */
+    private void processVirtualCalls(JMethod method, Set<Type> types) {
+        callGraph.callSitesIn(method)
+                .filter(callSite -> callSite.isVirtual() || callSite.isInterface())
+                .forEach(callSite -> {
+                    JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+                    for (Type type : types) {
+                        if (typeSystem.isSubtype(declaringClass.getType(), type)) {
+                            addCallEdge(callSite, CallGraphs.dispatch(
+                                    getReceiverClass(type),
+                                    callSite.getMethodRef().getSubsignature()));
+                        }
+                    }
+                });
+    }
+
+    private void addCallEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            if (!callGraph.contains(callee)) {
+                methodQueue.add(callee);
+            }
+            JMethod caller = callSite.getContainer();
+            if (!callee.isStatic()) {
+                addFlowEdge(caller, callee, callee.getDeclaringClass().getType());
+            }
+            for (Type paramType : callee.getParamTypes()) {
+                if (paramType instanceof ReferenceType) {
+                    addFlowEdge(caller, callee, paramType);
+                }
+            }
+            if (callee.getReturnType() instanceof ReferenceType) {
+                addFlowEdge(callee, caller, callee.getReturnType());
+            }
+        }
+    }
+
+    /**
+     * Adds a flow edge, and propagates the types which have
+     * already flowed to {@code source}.
+     */
+    private void addFlowEdge(Object source, Object target, Type filter) {
+        if (flowEdges.put(source, new FlowEdge(target, filter))) {
+            Set<Type> types = typeSets.get(source);
+            if (types != null) {
+                addTypes(target, filter(types, filter));
+            }
+        }
+    }
+
+    private void addTypes(Object owner, Set<Type> types) {
+        if (!types.isEmpty()) {
+            workList.add(new Entry(owner, types));
+        }
+    }
+
+    /**
+     * Adds types to the type set of {@code owner}.
+     *
+     * @return the types that are newly added.
+     */
+    private Set<Type> propagate(Object owner, Set<Type> types) {
+        Set<Type> typeSet = typeSets.computeIfAbsent(owner, unused -> Sets.newHybridSet());
+        Set<Type> diff = Sets.newHybridSet();
+        for (Type type : types) {
+            if (typeSet.add(type)) {
+                diff.add(type);
+            }
+        }
+        return diff;
+    }
+
+    private Set<Type> filter(Set<Type> types, Type filter) {
+        if (filter == null) {
+            return types;
+        }
+        return types.stream()
+                .filter(type -> typeSystem.isSubtype(filter, type))
+                .collect(Collectors.toSet());
+    }
+
+    private static JField resolveField(FieldStmt<?, ?> stmt) {
+        JField field = stmt.getFieldRef().resolveNullable();
+        return field != null && field.getType() instanceof ReferenceType ?
+                field : null;
+    }
+
+    /**
+     * @return the class used to dispatch calls on objects of given type.
+     */
+    private JClass getReceiverClass(Type type) {
+        return type instanceof ClassType classType ?
+                classType.getJClass() :
+                hierarchy.getJREClass(ClassNames.OBJECT);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ICFG whose edges are built on demand. The edges of a method, i.e.,
+ * the edges of its CFG, the call edges into its entry and out of its
+ * call sites, and the return edges out of its exit and into its return
+ * sites, are created when a node of the method is first queried.
+ * <p>
+ * The edges of a method are pinned until {@link #release(JMethod)}
+ * is called, e.g., when a client has finished processing the method;
+ * after that, they are only softly reachable, so that the garbage
+ * collector can reclaim them under memory pressure. Reclaimed edges
+ * are rebuilt if the method is queried again. The inner nodes of released
+ * methods are also forgotten, so that the memory held by this ICFG does
+ * not grow with the number of methods that have been processed.
+ * <p>
+ * {@link #getNodes()} and the iterator of this ICFG still visit all
+ * nodes, and thus build the edges of all reachable methods.
+ */
+public class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private static final Logger logger = LogManager.getLogger(LazyICFG.class);
+
+    /**
+     * Edges of the methods that are still in use.
+     */
+    private final Map<JMethod, MethodEdges> pinned = Maps.newMap();
+
+    private final Map<JMethod, SoftReference<MethodEdges>> cache = Maps.newMap();
+
+    /**
+     * Maps nodes that have been seen so far to their containing methods.
+     * When a method is released, only its entry, exit and return sites
+     * are kept in this map, as its edges are queried again only through
+     * these nodes (see {@link #release(JMethod)}).
+     */
+    private final Map<Stmt, JMethod> stmtToMethod = Maps.newMap();
+
+    /**
+     * Whether the edges of all reachable methods have been built once.
+     */
+    private boolean isComplete = false;
+
+    LazyICFG(CallGraph<Stmt, JMethod> callGraph) {
+        super(callGraph);
+    }
+
+    /**
+     * Unpins the edges of the given method, so that they can be reclaimed
+     * by the garbage collector.
+     */
+    public void release(JMethod method) {
+        if (pinned.remove(method) != null && !isComplete) {
+            CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+            cfg.forEach(stmt -> {
+                if (!isBoundary(stmt, cfg)) {
+                    stmtToMethod.remove(stmt);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true if given node is the entry, the exit or a return site
+     * of its method, i.e., the node may be reached by an edge from other
+     * methods.
+     */
+    private static boolean isBoundary(Stmt stmt, CFG<Stmt> cfg) {
+        return cfg.isEntry(stmt) || cfg.isExit(stmt) ||
+                cfg.getPredsOf(stmt).stream().anyMatch(Invoke.class::isInstance);
+    }
+
+    /**
+     * @return the number of methods whose edges are currently pinned.
+     */
+    public int getNumberOfPinnedMethods() {
+        return pinned.size();
+    }
+
+    /**
+     * @return true if the nodes of all reachable methods have been
+     * collected, i.e., this ICFG is no longer lazy.
+     */
+    boolean isComplete() {
+        return isComplete;
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        MethodEdges edges = getEdgesOf(stmt);
+        return edges == null ? Set.of() : edges.inEdges.get(stmt);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        MethodEdges edges = getEdgesOf(stmt);
+        return edges == null ? Set.of() : edges.outEdges.get(stmt);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        Stmt entry = ICFGBuilder.getCFGOf(method).getEntry();
+        stmtToMethod.putIfAbsent(entry, method);
+        return entry;
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        Stmt exit = ICFGBuilder.getCFGOf(method).getExit();
+        stmtToMethod.putIfAbsent(exit, method);
+        return exit;
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt stmt) {
+        assert isCallSite(stmt);
+        return ICFGBuilder.getCFGOf(((Invoke) stmt).getContainer())
+                .getSuccsOf(stmt);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        if (stmt instanceof Invoke invoke) {
+            return invoke.getContainer();
+        }
+        JMethod method = stmtToMethod.get(stmt);
+        if (method == null && !isComplete) {
+            // the node has not been seen or has been forgotten,
+            // search the reachable methods
+            getNodes();
+            method = stmtToMethod.get(stmt);
+        }
+        return method;
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        return getNodes().contains(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.getTarget().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        if (!isComplete) {
+            callGraph.reachableMethods().forEach(method -> {
+                CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+                if (cfg != null) {
+                    cfg.forEach(stmt -> stmtToMethod.put(stmt, method));
+                }
+            });
+            isComplete = true;
+        }
+        return Collections.unmodifiableSet(stmtToMethod.keySet());
+    }
+
+    private MethodEdges getEdgesOf(Stmt stmt) {
+        JMethod method = getContainingMethodOf(stmt);
+        return method == null ? null : getEdgesOf(method);
+    }
+
+    private MethodEdges getEdgesOf(JMethod method) {
+        MethodEdges edges = pinned.get(method);
+        if (edges == null) {
+            SoftReference<MethodEdges> ref = cache.get(method);
+            edges = ref != null ? ref.get() : null;
+            if (edges == null) {
+                edges = buildEdgesOf(method);
+                cache.put(method, new SoftReference<>(edges));
+            } else if (!isComplete) {
+                // the inner nodes were forgotten when the method was released
+                CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+                cfg.forEach(stmt -> stmtToMethod.put(stmt, method));
+            }
+            pinned.put(method, edges);
+        }
+        return edges;
+    }
+
+    private MethodEdges buildEdgesOf(JMethod method) {
+        MethodEdges edges = new MethodEdges();
+        CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+        if (cfg == null) {
+            logger.warn("CFG of {} is absent, try to fix this by adding option -scope=reachable", method);
+            return edges;
+        }
+        // intra-procedural edges and call edges out of call sites
+        cfg.forEach(stmt -> {
+            stmtToMethod.put(stmt, method);
+            cfg.getOutEdgesOf(stmt).forEach(e -> {
+                ICFGEdge<Stmt> edge = isCallSite(stmt) ?
+                        new CallToReturnEdge<>(e) :
+                        new NormalEdge<>(e);
+                edges.addEdge(stmt, e.getTarget(), edge);
+            });
+            if (isCallSite(stmt)) {
+                getCalleesOf(stmt).forEach(callee -> {
+                    if (ICFGBuilder.getCFGOf(callee) == null) {
+                        logger.warn("CFG of {} is missing", callee);
+                        return;
+                    }
+                    edges.outEdges.put(stmt,
+                            new CallEdge<>(stmt, getEntryOf(callee), callee));
+                    Stmt calleeExit = getExitOf(callee);
+                    ReturnInfo info = getReturnInfoOf(callee);
+                    getReturnSitesOf(stmt).forEach(retSite ->
+                            edges.inEdges.put(retSite, new ReturnEdge<>(calleeExit,
+                                    retSite, stmt, info.retVars, info.exceptions)));
+                });
+            }
+        });
+        // call edges into entry and return edges out of exit
+        Stmt entry = cfg.getEntry();
+        Stmt exit = cfg.getExit();
+        ReturnInfo info = getReturnInfoOf(method);
+        getCallersOf(method).forEach(callSite -> {
+            edges.inEdges.put(entry, new CallEdge<>(callSite, entry, method));
+            getReturnSitesOf(callSite).forEach(retSite -> {
+                stmtToMethod.putIfAbsent(retSite, getContainingMethodOf(callSite));
+                edges.outEdges.put(exit, new ReturnEdge<>(exit, retSite,
+                        callSite, info.retVars, info.exceptions));
+            });
+        });
+        return edges;
+    }
+
+    /**
+     * Collects the return variables and the exceptions that may be thrown
+     * out of the given method, in the same way as {@link DefaultICFG}.
+     */
+    private static ReturnInfo getReturnInfoOf(JMethod method) {
+        CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+        Set<Var> retVars = Sets.newHybridSet();
+        Set<ClassType> exceptions = Sets.newHybridSet();
+        cfg.getInEdgesOf(cfg.getExit()).forEach(retEdge -> {
+            if (retEdge.getKind() == Edge.Kind.RETURN) {
+                Return ret = (Return) retEdge.getSource();
+                if (ret.getValue() != null) {
+                    retVars.add(ret.getValue());
+                }
+            }
+            if (retEdge.isExceptional()) {
+                exceptions.addAll(retEdge.getExceptions());
+            }
+        });
+        return new ReturnInfo(retVars, exceptions);
+    }
+
+    private record ReturnInfo(Set<Var> retVars, Set<ClassType> exceptions) {
+    }
+
+    /**
+     * In and out edges of the nodes in a method.
+     */
+    private static class MethodEdges {
+
+        private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+        private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+        private void addEdge(Stmt source, Stmt target, ICFGEdge<Stmt> edge) {
+            outEdges.put(source, edge);
+            inEdges.put(target, edge);
+        }
+    }
+}
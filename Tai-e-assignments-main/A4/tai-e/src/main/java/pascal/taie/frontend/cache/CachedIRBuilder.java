@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRBuilder;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IR builder which loads the IR of methods from an {@link IRCache},
+ * and falls back to the wrapped builder for the methods whose IR
+ * is not cached yet. As {@link JMethod#getIR()} builds the IR by the
+ * IR builder of the world, installing this builder in the world makes
+ * each method load its cached IR lazily, on the first call of getIR().
+ */
+class CachedIRBuilder implements IRBuilder {
+
+    private final IRBuilder builder;
+
+    private final IRCache cache;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    CachedIRBuilder(IRBuilder builder, IRCache cache) {
+        this.builder = builder;
+        this.cache = cache;
+    }
+
+    @Override
+    public IR buildIR(JMethod method) {
+        IR ir = cache.load(method);
+        if (ir != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            ir = builder.buildIR(method);
+            cache.store(method, ir);
+        }
+        return ir;
+    }
+
+    @Override
+    public void buildAll(ClassHierarchy hierarchy) {
+        hierarchy.allClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .forEach(JMethod::getIR);
+    }
+
+    /**
+     * @return number of methods whose IR was loaded from the cache.
+     */
+    int getNumberOfHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of methods whose IR was built by the wrapped builder.
+     */
+    int getNumberOfMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+import pascal.taie.World;
+import pascal.taie.WorldBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.Configs;
+import pascal.taie.config.Options;
+import pascal.taie.frontend.soot.SootWorldBuilder;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * World builder which builds the world by {@link SootWorldBuilder},
+ * and then makes the methods load their IR from an on-disk cache
+ * in {@code output/ir-cache}, so that later runs on unchanged classes
+ * skip converting the method bodies to IR. Enable it by
+ * {@code --world-builder pascal.taie.frontend.cache.CachedWorldBuilder}.
+ * <p>
+ * Soot still loads the classes and builds the class hierarchy. Besides,
+ * {@code --pre-build-ir} builds all IR before the cache is installed,
+ * so it should not be used together with this builder.
+ */
+public class CachedWorldBuilder implements WorldBuilder {
+
+    /**
+     * The cache of current world, which is closed when the world is reset.
+     */
+    private static IRCache cache;
+
+    static {
+        World.registerResetCallback(CachedWorldBuilder::closeCache);
+    }
+
+    @Override
+    public void build(Options options, List<AnalysisConfig> analyses) {
+        new SootWorldBuilder().build(options, analyses);
+        World world = World.get();
+        closeCache();
+        cache = new IRCache(new File(Configs.getOutputDir(), "ir-cache"),
+                options.getClassPath());
+        world.setIRBuilder(new CachedIRBuilder(world.getIRBuilder(), cache));
+    }
+
+    private static void closeCache() {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * On-disk cache of method IR. The IR of a method is stored in
+ * {@code <dir>/<hash of class file>/<hash of method signature>.ir},
+ * where the hash of class file is the SHA-256 of the content of the
+ * class file (or the source file, for classes loaded from sources)
+ * which declares the method, so that the cached IR is dropped as soon
+ * as the class changes.
+ * <p>
+ * Only classes found in the class path given by {@code -cp} are cached;
+ * the IR of other classes, e.g., the JDK classes added by {@code -pp},
+ * is always built by the frontend.
+ */
+class IRCache {
+
+    private static final Logger logger = LogManager.getLogger(IRCache.class);
+
+    private static final String SUFFIX = ".ir";
+
+    private final File dir;
+
+    private final List<File> classPath;
+
+    /**
+     * Hashes of the class files, or empty if the class file is not found.
+     */
+    private final ConcurrentMap<JClass, Optional<String>> classHashes =
+            Maps.newConcurrentMap();
+
+    /**
+     * Jar files in the class path, opened on first lookup and kept open
+     * until {@link #close()}, or empty if the jar cannot be opened.
+     */
+    private final ConcurrentMap<File, Optional<JarFile>> jars =
+            Maps.newConcurrentMap();
+
+    IRCache(File dir, @Nullable String classPath) {
+        this.dir = dir;
+        this.classPath = classPath == null ? List.of() :
+                Arrays.stream(classPath.split(File.pathSeparator))
+                        .filter(path -> !path.isBlank())
+                        .map(File::new)
+                        .toList();
+    }
+
+    /**
+     * @return the cached IR of the method, or null if the IR is not
+     * cached or cannot be loaded.
+     */
+    @Nullable
+    IR load(JMethod method) {
+        File file = getFile(method);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != IRFormat.VERSION ||
+                    !in.readUTF().equals(method.getSignature())) {
+                return null;
+            }
+            World world = World.get();
+            return new IRReader(in, method,
+                    world.getTypeSystem(), world.getClassHierarchy()).read();
+        } catch (IOException | RuntimeException e) {
+            // a corrupted cache file is not fatal, we just build the IR again
+            logger.warn("Failed to load cached IR of {} from {}: {}",
+                    method, file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the IR of the method. IR which cannot be encoded,
+     * e.g., IR containing invokedynamic, is not stored.
+     */
+    void store(JMethod method, IR ir) {
+        File file = getFile(method);
+        if (file == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(IRFormat.VERSION);
+            out.writeUTF(method.getSignature());
+            new IRWriter(out).write(ir);
+            out.flush();
+            // write to a temporary file and then move it, so that
+            // concurrent runs never see partially written files
+            File classDir = file.getParentFile();
+            Files.createDirectories(classDir.toPath());
+            Path temp = Files.createTempFile(
+                    classDir.toPath(), file.getName(), ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IRWriter.UnsupportedIRException e) {
+            logger.debug("Skip caching IR of {}: {}", method, e.getMessage());
+        } catch (IOException e) {
+            logger.warn("Failed to cache IR of {} to {}: {}", method, file, e);
+        }
+    }
+
+    private @Nullable File getFile(JMethod method) {
+        return getClassHash(method.getDeclaringClass())
+                .map(classHash -> new File(new File(dir, classHash),
+                        hash(method.getSignature().getBytes(
+                                StandardCharsets.UTF_8)) + SUFFIX))
+                .orElse(null);
+    }
+
+    private Optional<String> getClassHash(JClass jclass) {
+        return classHashes.computeIfAbsent(jclass, c -> {
+            byte[] content = readClassFile(c.getName());
+            return content == null ? Optional.empty() :
+                    Optional.of(hash(content));
+        });
+    }
+
+    /**
+     * @return the content of the class file (or the source file) of
+     * the class, or null if the class is not in the class path.
+     */
+    private @Nullable byte[] readClassFile(String className) {
+        String path = className.replace('.', '/');
+        int nested = path.indexOf('$', path.lastIndexOf('/') + 1);
+        String sourcePath = nested == -1 ? path : path.substring(0, nested);
+        List<String> candidates = List.of(path + ".class", sourcePath + ".java");
+        for (File entry : classPath) {
+            for (String candidate : candidates) {
+                try {
+                    byte[] content = read(entry, candidate);
+                    if (content != null) {
+                        return content;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Failed to read {} from {}: {}",
+                            candidate, entry, e);
+                }
+            }
+        }
+        return null;
+    }
+
+    private @Nullable byte[] read(File entry, String name) throws IOException {
+        if (entry.isDirectory()) {
+            File file = new File(entry, name);
+            return file.isFile() ? Files.readAllBytes(file.toPath()) : null;
+        }
+        JarFile jar = getJar(entry);
+        if (jar != null) {
+            JarEntry jarEntry = jar.getJarEntry(name);
+            if (jarEntry != null) {
+                try (InputStream in = jar.getInputStream(jarEntry)) {
+                    return in.readAllBytes();
+                }
+            }
+        }
+        return null;
+    }
+
+    private @Nullable JarFile getJar(File entry) {
+        return jars.computeIfAbsent(entry, e -> {
+            if (e.isFile()) {
+                try {
+                    return Optional.of(new JarFile(e));
+                } catch (IOException ex) {
+                    logger.warn("Failed to open {}: {}", e, ex);
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    /**
+     * Closes the jar files opened by this cache.
+     */
+    void close() {
+        jars.values().forEach(jar -> jar.ifPresent(j -> {
+            try {
+                j.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close {}: {}", j.getName(), e);
+            }
+        }));
+        jars.clear();
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+/**
+ * Tags of the binary format of cached IR, shared by {@link IRWriter}
+ * and {@link IRReader}.
+ */
+final class IRFormat {
+
+    private IRFormat() {
+    }
+
+    /**
+     * Version of the format. Cached IR of other versions is ignored,
+     * so this must be bumped whenever the encoding changes.
+     */
+    static final int VERSION = 1;
+
+    // tags of statements
+    static final byte ASSIGN_LITERAL = 0;
+    static final byte COPY = 1;
+    static final byte NEW = 2;
+    static final byte BINARY = 3;
+    static final byte UNARY = 4;
+    static final byte CAST = 5;
+    static final byte INSTANCE_OF = 6;
+    static final byte LOAD_FIELD = 7;
+    static final byte STORE_FIELD = 8;
+    static final byte LOAD_ARRAY = 9;
+    static final byte STORE_ARRAY = 10;
+    static final byte INVOKE = 11;
+    static final byte GOTO = 12;
+    static final byte IF = 13;
+    static final byte LOOKUP_SWITCH = 14;
+    static final byte TABLE_SWITCH = 15;
+    static final byte RETURN = 16;
+    static final byte THROW = 17;
+    static final byte CATCH = 18;
+    static final byte MONITOR = 19;
+    static final byte NOP = 20;
+
+    // tags of expressions
+    static final byte ARITHMETIC = 0;
+    static final byte BITWISE = 1;
+    static final byte SHIFT = 2;
+    static final byte COMPARISON = 3;
+    static final byte CONDITION = 4;
+    static final byte NEG = 5;
+    static final byte ARRAY_LENGTH = 6;
+    static final byte NEW_INSTANCE = 7;
+    static final byte NEW_ARRAY = 8;
+    static final byte NEW_MULTI_ARRAY = 9;
+    static final byte INVOKE_STATIC = 10;
+    static final byte INVOKE_VIRTUAL = 11;
+    static final byte INVOKE_INTERFACE = 12;
+    static final byte INVOKE_SPECIAL = 13;
+
+    // tags of literals
+    static final byte INT = 0;
+    static final byte LONG = 1;
+    static final byte FLOAT = 2;
+    static final byte DOUBLE = 3;
+    static final byte STRING = 4;
+    static final byte CLASS = 5;
+    static final byte NULL = 6;
+
+    // tags of types
+    static final byte PRIMITIVE_TYPE = 0;
+    static final byte CLASS_TYPE = 1;
+    static final byte ARRAY_TYPE = 2;
+    static final byte VOID_TYPE = 3;
+    static final byte NULL_TYPE = 4;
+
+    /**
+     * Marks an absent variable, e.g., "this" of static methods.
+     */
+    static final int NO_VAR = -1;
+}
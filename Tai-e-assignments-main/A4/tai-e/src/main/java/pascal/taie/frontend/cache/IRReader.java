@@ -0,0 +1,401 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ArrayAccess;
+import pascal.taie.ir.exp.ArrayLengthExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.ComparisonExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.DoubleLiteral;
+import pascal.taie.ir.exp.FieldAccess;
+import pascal.taie.ir.exp.FloatLiteral;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InstanceOfExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInterface;
+import pascal.taie.ir.exp.InvokeSpecial;
+import pascal.taie.ir.exp.InvokeStatic;
+import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.exp.Literal;
+import pascal.taie.ir.exp.LongLiteral;
+import pascal.taie.ir.exp.NegExp;
+import pascal.taie.ir.exp.NewArray;
+import pascal.taie.ir.exp.NewExp;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.NewMultiArray;
+import pascal.taie.ir.exp.NullLiteral;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.ir.exp.StaticFieldAccess;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.exp.UnaryExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Catch;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.InstanceOf;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.LookupSwitch;
+import pascal.taie.ir.stmt.Monitor;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.ir.stmt.TableSwitch;
+import pascal.taie.ir.stmt.Throw;
+import pascal.taie.ir.stmt.Unary;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.NullType;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.language.type.VoidType;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static pascal.taie.frontend.cache.IRFormat.*;
+
+/**
+ * Decodes the IR written by {@link IRWriter} for a given method.
+ * Statements are rebuilt by their constructors, which also record
+ * the relevant statements of the variables; jump targets are set
+ * after all statements have been read, as they may refer forward.
+ */
+class IRReader {
+
+    private final DataInputStream in;
+
+    private final JMethod method;
+
+    private final TypeSystem typeSystem;
+
+    private final ClassHierarchy hierarchy;
+
+    private final List<Var> vars = new ArrayList<>();
+
+    private final List<Stmt> stmts = new ArrayList<>();
+
+    /**
+     * Jump targets of the statements read so far, set after
+     * all statements are read.
+     */
+    private final List<Runnable> targetSetters = new ArrayList<>();
+
+    IRReader(DataInputStream in, JMethod method,
+             TypeSystem typeSystem, ClassHierarchy hierarchy) {
+        this.in = in;
+        this.method = method;
+        this.typeSystem = typeSystem;
+        this.hierarchy = hierarchy;
+    }
+
+    IR read() throws IOException {
+        int varCount = in.readInt();
+        for (int i = 0; i < varCount; ++i) {
+            String name = readString();
+            Type type = readType();
+            int index = in.readInt();
+            Literal constValue = in.readBoolean() ? readLiteral() : null;
+            vars.add(new Var(method, name, type, index, constValue));
+        }
+        Var thisVar = readVarOrNull();
+        List<Var> params = readVars();
+        Set<Var> returnVars = Sets.newHybridOrderedSet();
+        returnVars.addAll(readVars());
+        int stmtCount = in.readInt();
+        for (int i = 0; i < stmtCount; ++i) {
+            int lineNumber = in.readInt();
+            Stmt stmt = readStmt();
+            stmt.setLineNumber(lineNumber);
+            stmt.setIndex(i);
+            stmts.add(stmt);
+        }
+        targetSetters.forEach(Runnable::run);
+        int entryCount = in.readInt();
+        List<ExceptionEntry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; ++i) {
+            Stmt start = readStmtRef();
+            Stmt end = readStmtRef();
+            Catch handler = (Catch) readStmtRef();
+            entries.add(new ExceptionEntry(start, end, handler,
+                    (ClassType) readType()));
+        }
+        return new DefaultIR(method, thisVar, params, returnVars,
+                vars, stmts, entries);
+    }
+
+    private Stmt readStmt() throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case ASSIGN_LITERAL -> new AssignLiteral(readVar(), readLiteral());
+            case COPY -> new Copy(readVar(), readVar());
+            case NEW -> new New(method, readVar(), readNewExp());
+            case BINARY -> new Binary(readVar(), readBinaryExp());
+            case UNARY -> new Unary(readVar(), readUnaryExp());
+            case CAST -> new Cast(readVar(),
+                    new CastExp(readVar(), readType()));
+            case INSTANCE_OF -> new InstanceOf(readVar(),
+                    new InstanceOfExp(readVar(), readType()));
+            case LOAD_FIELD -> new LoadField(readVar(), readFieldAccess());
+            case STORE_FIELD -> new StoreField(readFieldAccess(), readVar());
+            case LOAD_ARRAY -> new LoadArray(readVar(), readArrayAccess());
+            case STORE_ARRAY -> new StoreArray(readArrayAccess(), readVar());
+            case INVOKE -> new Invoke(method, readInvokeExp(), readVarOrNull());
+            case GOTO -> {
+                Goto gotoStmt = new Goto();
+                int target = in.readInt();
+                targetSetters.add(() -> gotoStmt.setTarget(stmts.get(target)));
+                yield gotoStmt;
+            }
+            case IF -> {
+                If ifStmt = new If((ConditionExp) readBinaryExp());
+                int target = in.readInt();
+                targetSetters.add(() -> ifStmt.setTarget(stmts.get(target)));
+                yield ifStmt;
+            }
+            case LOOKUP_SWITCH -> {
+                Var var = readVar();
+                int caseCount = in.readInt();
+                List<Integer> caseValues = new ArrayList<>(caseCount);
+                for (int i = 0; i < caseCount; ++i) {
+                    caseValues.add(in.readInt());
+                }
+                yield readSwitchTargets(new LookupSwitch(var, caseValues));
+            }
+            case TABLE_SWITCH -> {
+                Var var = readVar();
+                int low = in.readInt();
+                int high = in.readInt();
+                yield readSwitchTargets(new TableSwitch(var, low, high));
+            }
+            case RETURN -> {
+                Var value = readVarOrNull();
+                yield value == null ? new Return() : new Return(value);
+            }
+            case THROW -> new Throw(readVar());
+            case CATCH -> new Catch(readVar());
+            case MONITOR -> {
+                Monitor.Op op = in.readBoolean() ?
+                        Monitor.Op.ENTER : Monitor.Op.EXIT;
+                yield new Monitor(op, readVar());
+            }
+            case NOP -> new Nop();
+            default -> throw new IOException("Unknown statement tag: " + tag);
+        };
+    }
+
+    private SwitchStmt readSwitchTargets(SwitchStmt switchStmt) throws IOException {
+        int targetCount = in.readInt();
+        int[] targets = new int[targetCount];
+        for (int i = 0; i < targetCount; ++i) {
+            targets[i] = in.readInt();
+        }
+        int defaultTarget = in.readInt();
+        targetSetters.add(() -> {
+            List<Stmt> targetStmts = new ArrayList<>(targetCount);
+            for (int target : targets) {
+                targetStmts.add(stmts.get(target));
+            }
+            switchStmt.setTargets(targetStmts);
+            switchStmt.setDefaultTarget(stmts.get(defaultTarget));
+        });
+        return switchStmt;
+    }
+
+    private NewExp readNewExp() throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NEW_INSTANCE -> new NewInstance((ClassType) readType());
+            case NEW_ARRAY -> new NewArray((ArrayType) readType(), readVar());
+            case NEW_MULTI_ARRAY -> new NewMultiArray((ArrayType) readType(), readVars());
+            default -> throw new IOException("Unknown new expression tag: " + tag);
+        };
+    }
+
+    private BinaryExp readBinaryExp() throws IOException {
+        byte tag = in.readByte();
+        String op = readString();
+        Var operand1 = readVar();
+        Var operand2 = readVar();
+        return switch (tag) {
+            case ARITHMETIC -> new ArithmeticExp(
+                    ArithmeticExp.Op.valueOf(op), operand1, operand2);
+            case BITWISE -> new BitwiseExp(
+                    BitwiseExp.Op.valueOf(op), operand1, operand2);
+            case SHIFT -> new ShiftExp(
+                    ShiftExp.Op.valueOf(op), operand1, operand2);
+            case COMPARISON -> new ComparisonExp(
+                    ComparisonExp.Op.valueOf(op), operand1, operand2);
+            case CONDITION -> new ConditionExp(
+                    ConditionExp.Op.valueOf(op), operand1, operand2);
+            default -> throw new IOException("Unknown binary expression tag: " + tag);
+        };
+    }
+
+    private UnaryExp readUnaryExp() throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NEG -> new NegExp(readVar());
+            case ARRAY_LENGTH -> new ArrayLengthExp(readVar());
+            default -> throw new IOException("Unknown unary expression tag: " + tag);
+        };
+    }
+
+    private InvokeExp readInvokeExp() throws IOException {
+        byte tag = in.readByte();
+        MethodRef ref = readMethodRef();
+        return switch (tag) {
+            case INVOKE_STATIC -> new InvokeStatic(ref, readVars());
+            case INVOKE_VIRTUAL -> new InvokeVirtual(ref, readVar(), readVars());
+            case INVOKE_INTERFACE -> new InvokeInterface(ref, readVar(), readVars());
+            case INVOKE_SPECIAL -> new InvokeSpecial(ref, readVar(), readVars());
+            default -> throw new IOException("Unknown invoke expression tag: " + tag);
+        };
+    }
+
+    private FieldAccess readFieldAccess() throws IOException {
+        JClass declaringClass = readClass();
+        String name = readString();
+        Type type = readType();
+        boolean isStatic = in.readBoolean();
+        FieldRef ref = FieldRef.get(declaringClass, name, type, isStatic);
+        return isStatic ? new StaticFieldAccess(ref) :
+                new InstanceFieldAccess(ref, readVar());
+    }
+
+    private ArrayAccess readArrayAccess() throws IOException {
+        return new ArrayAccess(readVar(), readVar());
+    }
+
+    private MethodRef readMethodRef() throws IOException {
+        JClass declaringClass = readClass();
+        String name = readString();
+        int paramCount = in.readInt();
+        List<Type> paramTypes = new ArrayList<>(paramCount);
+        for (int i = 0; i < paramCount; ++i) {
+            paramTypes.add(readType());
+        }
+        Type returnType = readType();
+        boolean isStatic = in.readBoolean();
+        return MethodRef.get(declaringClass, name,
+                paramTypes, returnType, isStatic);
+    }
+
+    private JClass readClass() throws IOException {
+        String name = readString();
+        JClass jclass = hierarchy.getClass(name);
+        if (jclass == null) {
+            // the cached IR refers to a class which is absent
+            // in current class hierarchy
+            throw new IOException("Unknown class: " + name);
+        }
+        return jclass;
+    }
+
+    private Literal readLiteral() throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case INT -> IntLiteral.get(in.readInt());
+            case LONG -> LongLiteral.get(in.readLong());
+            case FLOAT -> FloatLiteral.get(in.readFloat());
+            case DOUBLE -> DoubleLiteral.get(in.readDouble());
+            case STRING -> StringLiteral.get(readString());
+            case CLASS -> ClassLiteral.get(readType());
+            case NULL -> NullLiteral.get();
+            default -> throw new IOException("Unknown literal tag: " + tag);
+        };
+    }
+
+    private Type readType() throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case PRIMITIVE_TYPE -> PrimitiveType.valueOf(readString());
+            case CLASS_TYPE -> typeSystem.getClassType(readString());
+            case ARRAY_TYPE -> {
+                Type baseType = readType();
+                yield typeSystem.getArrayType(baseType, in.readInt());
+            }
+            case VOID_TYPE -> VoidType.VOID;
+            case NULL_TYPE -> NullType.NULL;
+            default -> throw new IOException("Unknown type tag: " + tag);
+        };
+    }
+
+    private List<Var> readVars() throws IOException {
+        int count = in.readInt();
+        List<Var> result = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            result.add(readVar());
+        }
+        return result;
+    }
+
+    private @Nullable Var readVarOrNull() throws IOException {
+        int id = in.readInt();
+        return id == NO_VAR ? null : vars.get(id);
+    }
+
+    private Var readVar() throws IOException {
+        return vars.get(in.readInt());
+    }
+
+    private Stmt readStmtRef() throws IOException {
+        return stmts.get(in.readInt());
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ArrayAccess;
+import pascal.taie.ir.exp.ArrayLengthExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.ComparisonExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.DoubleLiteral;
+import pascal.taie.ir.exp.FieldAccess;
+import pascal.taie.ir.exp.FloatLiteral;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.InvokeInterface;
+import pascal.taie.ir.exp.InvokeSpecial;
+import pascal.taie.ir.exp.InvokeStatic;
+import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.exp.Literal;
+import pascal.taie.ir.exp.LongLiteral;
+import pascal.taie.ir.exp.NegExp;
+import pascal.taie.ir.exp.NewArray;
+import pascal.taie.ir.exp.NewExp;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.NewMultiArray;
+import pascal.taie.ir.exp.NullLiteral;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.exp.UnaryExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Catch;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.InstanceOf;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.LookupSwitch;
+import pascal.taie.ir.stmt.Monitor;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.ir.stmt.TableSwitch;
+import pascal.taie.ir.stmt.Throw;
+import pascal.taie.ir.stmt.Unary;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.NullType;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.VoidType;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static pascal.taie.frontend.cache.IRFormat.*;
+
+/**
+ * Encodes an {@link IR} in the format read by {@link IRReader}.
+ * Variables and statements are referred to by their positions in
+ * {@link IR#getVars()} and {@link IR#getStmts()}, and classes, methods,
+ * fields and types by their names. The relevant statements of variables,
+ * e.g., {@link Var#getLoadFields()}, are not written, as they are
+ * recorded again when the statements are rebuilt.
+ */
+class IRWriter {
+
+    private final DataOutputStream out;
+
+    private final Map<Var, Integer> varIds = Maps.newMap();
+
+    private final Map<Stmt, Integer> stmtIds = Maps.newMap();
+
+    IRWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the given IR.
+     *
+     * @throws UnsupportedIRException if the IR contains constructs
+     *                                which cannot be encoded
+     */
+    void write(IR ir) throws IOException {
+        List<Var> vars = ir.getVars();
+        out.writeInt(vars.size());
+        for (Var var : vars) {
+            varIds.put(var, varIds.size());
+            writeString(var.getName());
+            writeType(var.getType());
+            out.writeInt(var.getIndex());
+            out.writeBoolean(var.isTempConst());
+            if (var.isTempConst()) {
+                writeLiteral(var.getTempConstValue());
+            }
+        }
+        writeVarOrNull(ir.getThis());
+        writeVars(ir.getParams());
+        writeVars(ir.getReturnVars());
+        List<Stmt> stmts = ir.getStmts();
+        stmts.forEach(stmt -> stmtIds.put(stmt, stmtIds.size()));
+        out.writeInt(stmts.size());
+        for (Stmt stmt : stmts) {
+            out.writeInt(stmt.getLineNumber());
+            writeStmt(stmt);
+        }
+        List<ExceptionEntry> entries = ir.getExceptionEntries();
+        out.writeInt(entries.size());
+        for (ExceptionEntry entry : entries) {
+            writeStmtRef(entry.start());
+            writeStmtRef(entry.end());
+            writeStmtRef(entry.handler());
+            writeType(entry.catchType());
+        }
+    }
+
+    private void writeStmt(Stmt stmt) throws IOException {
+        if (stmt instanceof AssignLiteral assign) {
+            out.writeByte(ASSIGN_LITERAL);
+            writeVar(assign.getLValue());
+            writeLiteral(assign.getRValue());
+        } else if (stmt instanceof Copy copy) {
+            out.writeByte(COPY);
+            writeVar(copy.getLValue());
+            writeVar(copy.getRValue());
+        } else if (stmt instanceof New newStmt) {
+            out.writeByte(NEW);
+            writeVar(newStmt.getLValue());
+            writeNewExp(newStmt.getRValue());
+        } else if (stmt instanceof Binary binary) {
+            out.writeByte(BINARY);
+            writeVar(binary.getLValue());
+            writeBinaryExp(binary.getRValue());
+        } else if (stmt instanceof Unary unary) {
+            out.writeByte(UNARY);
+            writeVar(unary.getLValue());
+            writeUnaryExp(unary.getRValue());
+        } else if (stmt instanceof Cast cast) {
+            out.writeByte(CAST);
+            writeVar(cast.getLValue());
+            writeVar(cast.getRValue().getValue());
+            writeType(cast.getRValue().getCastType());
+        } else if (stmt instanceof InstanceOf instanceOf) {
+            out.writeByte(INSTANCE_OF);
+            writeVar(instanceOf.getLValue());
+            writeVar(instanceOf.getRValue().getValue());
+            writeType(instanceOf.getRValue().getCheckedType());
+        } else if (stmt instanceof LoadField load) {
+            out.writeByte(LOAD_FIELD);
+            writeVar(load.getLValue());
+            writeFieldAccess(load.getFieldAccess());
+        } else if (stmt instanceof StoreField store) {
+            out.writeByte(STORE_FIELD);
+            writeFieldAccess(store.getFieldAccess());
+            writeVar(store.getRValue());
+        } else if (stmt instanceof LoadArray load) {
+            out.writeByte(LOAD_ARRAY);
+            writeVar(load.getLValue());
+            writeArrayAccess(load.getArrayAccess());
+        } else if (stmt instanceof StoreArray store) {
+            out.writeByte(STORE_ARRAY);
+            writeArrayAccess(store.getArrayAccess());
+            writeVar(store.getRValue());
+        } else if (stmt instanceof Invoke invoke) {
+            out.writeByte(INVOKE);
+            writeInvokeExp(invoke.getInvokeExp());
+            writeVarOrNull(invoke.getResult());
+        } else if (stmt instanceof Goto gotoStmt) {
+            out.writeByte(GOTO);
+            writeStmtRef(gotoStmt.getTarget());
+        } else if (stmt instanceof If ifStmt) {
+            out.writeByte(IF);
+            writeBinaryExp(ifStmt.getCondition());
+            writeStmtRef(ifStmt.getTarget());
+        } else if (stmt instanceof LookupSwitch lookupSwitch) {
+            out.writeByte(LOOKUP_SWITCH);
+            writeVar(lookupSwitch.getVar());
+            List<Integer> caseValues = lookupSwitch.getCaseValues();
+            out.writeInt(caseValues.size());
+            for (int caseValue : caseValues) {
+                out.writeInt(caseValue);
+            }
+            writeSwitchTargets(lookupSwitch);
+        } else if (stmt instanceof TableSwitch tableSwitch) {
+            out.writeByte(TABLE_SWITCH);
+            writeVar(tableSwitch.getVar());
+            out.writeInt(tableSwitch.getLowIndex());
+            out.writeInt(tableSwitch.getHighIndex());
+            writeSwitchTargets(tableSwitch);
+        } else if (stmt instanceof Return ret) {
+            out.writeByte(RETURN);
+            writeVarOrNull(ret.getValue());
+        } else if (stmt instanceof Throw throwStmt) {
+            out.writeByte(THROW);
+            writeVar(throwStmt.getExceptionRef());
+        } else if (stmt instanceof Catch catchStmt) {
+            out.writeByte(CATCH);
+            writeVar(catchStmt.getExceptionRef());
+        } else if (stmt instanceof Monitor monitor) {
+            out.writeByte(MONITOR);
+            out.writeBoolean(monitor.isEnter());
+            writeVar(monitor.getObjectRef());
+        } else if (stmt instanceof Nop) {
+            out.writeByte(NOP);
+        } else {
+            throw new UnsupportedIRException(stmt.toString());
+        }
+    }
+
+    private void writeSwitchTargets(SwitchStmt switchStmt) throws IOException {
+        List<Stmt> targets = switchStmt.getTargets();
+        out.writeInt(targets.size());
+        for (Stmt target : targets) {
+            writeStmtRef(target);
+        }
+        writeStmtRef(switchStmt.getDefaultTarget());
+    }
+
+    private void writeNewExp(NewExp newExp) throws IOException {
+        if (newExp instanceof NewInstance newInstance) {
+            out.writeByte(NEW_INSTANCE);
+            writeType(newInstance.getType());
+        } else if (newExp instanceof NewArray newArray) {
+            out.writeByte(NEW_ARRAY);
+            writeType(newArray.getType());
+            writeVar(newArray.getLength());
+        } else if (newExp instanceof NewMultiArray newMultiArray) {
+            out.writeByte(NEW_MULTI_ARRAY);
+            writeType(newMultiArray.getType());
+            writeVars(newMultiArray.getLengths());
+        } else {
+            throw new UnsupportedIRException(newExp.toString());
+        }
+    }
+
+    private void writeBinaryExp(BinaryExp binaryExp) throws IOException {
+        if (binaryExp instanceof ArithmeticExp) {
+            out.writeByte(ARITHMETIC);
+        } else if (binaryExp instanceof BitwiseExp) {
+            out.writeByte(BITWISE);
+        } else if (binaryExp instanceof ShiftExp) {
+            out.writeByte(SHIFT);
+        } else if (binaryExp instanceof ComparisonExp) {
+            out.writeByte(COMPARISON);
+        } else if (binaryExp instanceof ConditionExp) {
+            out.writeByte(CONDITION);
+        } else {
+            throw new UnsupportedIRException(binaryExp.toString());
+        }
+        writeString(((Enum<?>) binaryExp.getOperator()).name());
+        writeVar(binaryExp.getOperand1());
+        writeVar(binaryExp.getOperand2());
+    }
+
+    private void writeUnaryExp(UnaryExp unaryExp) throws IOException {
+        if (unaryExp instanceof NegExp neg) {
+            out.writeByte(NEG);
+            writeVar(neg.getValue());
+        } else if (unaryExp instanceof ArrayLengthExp length) {
+            out.writeByte(ARRAY_LENGTH);
+            writeVar(length.getBase());
+        } else {
+            throw new UnsupportedIRException(unaryExp.toString());
+        }
+    }
+
+    private void writeInvokeExp(InvokeExp invokeExp) throws IOException {
+        if (invokeExp instanceof InvokeStatic) {
+            out.writeByte(INVOKE_STATIC);
+        } else if (invokeExp instanceof InvokeVirtual) {
+            out.writeByte(INVOKE_VIRTUAL);
+        } else if (invokeExp instanceof InvokeInterface) {
+            out.writeByte(INVOKE_INTERFACE);
+        } else if (invokeExp instanceof InvokeSpecial) {
+            out.writeByte(INVOKE_SPECIAL);
+        } else {
+            // invokedynamic carries bootstrap method handles and arguments
+            throw new UnsupportedIRException(invokeExp.toString());
+        }
+        writeMethodRef(invokeExp.getMethodRef());
+        if (invokeExp instanceof InvokeInstanceExp instanceExp) {
+            writeVar(instanceExp.getBase());
+        }
+        writeVars(invokeExp.getArgs());
+    }
+
+    private void writeFieldAccess(FieldAccess access) throws IOException {
+        FieldRef ref = access.getFieldRef();
+        writeString(ref.getDeclaringClass().getName());
+        writeString(ref.getName());
+        writeType(ref.getType());
+        out.writeBoolean(ref.isStatic());
+        if (access instanceof InstanceFieldAccess instanceAccess) {
+            writeVar(instanceAccess.getBase());
+        }
+    }
+
+    private void writeArrayAccess(ArrayAccess access) throws IOException {
+        writeVar(access.getBase());
+        writeVar(access.getIndex());
+    }
+
+    private void writeMethodRef(MethodRef ref) throws IOException {
+        writeString(ref.getDeclaringClass().getName());
+        writeString(ref.getName());
+        List<Type> paramTypes = ref.getParameterTypes();
+        out.writeInt(paramTypes.size());
+        for (Type paramType : paramTypes) {
+            writeType(paramType);
+        }
+        writeType(ref.getReturnType());
+        out.writeBoolean(ref.isStatic());
+    }
+
+    private void writeLiteral(Literal literal) throws IOException {
+        if (literal instanceof IntLiteral intLiteral) {
+            out.writeByte(INT);
+            out.writeInt(intLiteral.getValue());
+        } else if (literal instanceof LongLiteral longLiteral) {
+            out.writeByte(LONG);
+            out.writeLong(longLiteral.getValue());
+        } else if (literal instanceof FloatLiteral floatLiteral) {
+            out.writeByte(FLOAT);
+            out.writeFloat(floatLiteral.getValue());
+        } else if (literal instanceof DoubleLiteral doubleLiteral) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(doubleLiteral.getValue());
+        } else if (literal instanceof StringLiteral stringLiteral) {
+            out.writeByte(STRING);
+            writeString(stringLiteral.getString());
+        } else if (literal instanceof ClassLiteral classLiteral) {
+            out.writeByte(CLASS);
+            writeType(classLiteral.getTypeValue());
+        } else if (literal instanceof NullLiteral) {
+            out.writeByte(NULL);
+        } else {
+            // method handles and method types
+            throw new UnsupportedIRException(literal.toString());
+        }
+    }
+
+    private void writeType(Type type) throws IOException {
+        if (type instanceof PrimitiveType primitiveType) {
+            out.writeByte(PRIMITIVE_TYPE);
+            writeString(primitiveType.name());
+        } else if (type instanceof ClassType classType) {
+            out.writeByte(CLASS_TYPE);
+            writeString(classType.getName());
+        } else if (type instanceof ArrayType arrayType) {
+            out.writeByte(ARRAY_TYPE);
+            writeType(arrayType.baseType());
+            out.writeInt(arrayType.dimensions());
+        } else if (type instanceof VoidType) {
+            out.writeByte(VOID_TYPE);
+        } else if (type instanceof NullType) {
+            out.writeByte(NULL_TYPE);
+        } else {
+            throw new UnsupportedIRException(type.toString());
+        }
+    }
+
+    private void writeVars(Collection<Var> vars) throws IOException {
+        out.writeInt(vars.size());
+        for (Var var : vars) {
+            writeVar(var);
+        }
+    }
+
+    private void writeVarOrNull(@Nullable Var var) throws IOException {
+        if (var == null) {
+            out.writeInt(NO_VAR);
+        } else {
+            writeVar(var);
+        }
+    }
+
+    private void writeVar(Var var) throws IOException {
+        Integer id = varIds.get(var);
+        if (id == null) {
+            throw new UnsupportedIRException(var + " is not in the IR");
+        }
+        out.writeInt(id);
+    }
+
+    private void writeStmtRef(Stmt stmt) throws IOException {
+        Integer id = stmtIds.get(stmt);
+        if (id == null) {
+            throw new UnsupportedIRException(stmt + " is not in the IR");
+        }
+        out.writeInt(id);
+    }
+
+    private void writeString(String s) throws IOException {
+        // DataOutputStream.writeUTF() cannot write strings longer than 64KB
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Thrown when an IR contains constructs which cannot be encoded,
+     * such IR is not cached.
+     */
+    static class UnsupportedIRException extends RuntimeException {
+
+        UnsupportedIRException(String construct) {
+            super("Unsupported construct: " + construct);
+        }
+    }
+}
@@ -75,6 +75,12 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return true if {@code subclass} is a subclass (or subinterface,
+     * or implementor) of {@code superclass}, otherwise false.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
     /**
      * Obtains a JRE class by it name.
      *
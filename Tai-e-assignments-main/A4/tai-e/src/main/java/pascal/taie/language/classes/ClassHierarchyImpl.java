@@ -160,6 +160,22 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        if (superclass.equals(subclass) ||
+                superclass.getName().equals(ClassNames.OBJECT)) {
+            return true;
+        }
+        for (JClass c = subclass; c != null; c = c.getSuperClass()) {
+            if (c.equals(superclass) || (superclass.isInterface() &&
+                    c.getInterfaces().stream()
+                            .anyMatch(iface -> isSubclass(superclass, iface)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
@@ -60,7 +60,10 @@ public class JMethod extends ClassMember {
      */
     private final Object methodSource;
 
-    private IR ir;
+    /**
+     * IR of this method, built lazily on the first call to {@link #getIR()}.
+     */
+    private volatile IR ir;
 
     public JMethod(JClass declaringClass, String name, Set<Modifier> modifiers,
                    List<Type> paramTypes, Type returnType, List<ClassType> exceptions,
@@ -148,19 +151,32 @@ public class JMethod extends ClassMember {
         return methodSource;
     }
 
+    /**
+     * Returns the IR of this method, and builds it on the first call.
+     * This method is thread-safe: the IR of each method is built only
+     * once, and threads asking for the IR of different methods do not
+     * block each other.
+     */
     public IR getIR() {
-        if (ir == null) {
-            if (isAbstract()) {
-                throw new AnalysisException("Abstract method " + this +
-                        " has no method body");
-            }
-            if (isNative()) {
-                ir = World.get().getNativeModel().buildNativeIR(this);
-            } else {
-                ir = World.get().getIRBuilder().buildIR(this);
+        IR result = ir;
+        if (result == null) {
+            synchronized (this) {
+                result = ir;
+                if (result == null) {
+                    if (isAbstract()) {
+                        throw new AnalysisException("Abstract method " + this +
+                                " has no method body");
+                    }
+                    if (isNative()) {
+                        result = World.get().getNativeModel().buildNativeIR(this);
+                    } else {
+                        result = World.get().getIRBuilder().buildIR(this);
+                    }
+                    ir = result;
+                }
             }
         }
-        return ir;
+        return result;
     }
 
     /**
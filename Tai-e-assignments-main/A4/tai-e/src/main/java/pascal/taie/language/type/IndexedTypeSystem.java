@@ -0,0 +1,229 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.type;
+
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassLoader;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type system which answers {@link #isSubtype(Type, Type)} by an index
+ * of the class hierarchy, and delegates other queries to the wrapped
+ * type system.
+ * <p>
+ * The index numbers the classes by a depth-first traversal of the tree
+ * formed by superclass relations, so that each class covers an interval
+ * of numbers containing exactly its subclasses, and keeps, for each class,
+ * a bitset of all its (direct and indirect) superinterfaces. Then both
+ * subclass and interface checks take constant time. Subtyping of array
+ * types is decided by their element types.
+ * <p>
+ * The index is a snapshot of the hierarchy when it is built; the classes
+ * added to the hierarchy later are handled by the wrapped type system.
+ */
+public class IndexedTypeSystem implements TypeSystem {
+
+    private final TypeSystem typeSystem;
+
+    private final ClassType object;
+
+    private final ClassType cloneable;
+
+    private final ClassType serializable;
+
+    /**
+     * Pre-order numbers of classes in the superclass tree.
+     */
+    private final Map<JClass, Integer> classIds = Maps.newMap();
+
+    /**
+     * The largest pre-order number in the subtree of each class,
+     * indexed by the number of the class.
+     */
+    private final int[] lastIds;
+
+    /**
+     * Ids of interfaces, i.e., the bits of {@link #superinterfaces}.
+     */
+    private final Map<JClass, Integer> interfaceIds = Maps.newMap();
+
+    /**
+     * Superinterfaces of each class, indexed by the number of the class.
+     * Classes which declare no interfaces share the bitset of their superclasses.
+     */
+    private final BitSet[] superinterfaces;
+
+    public IndexedTypeSystem(TypeSystem typeSystem, ClassHierarchy hierarchy) {
+        this.typeSystem = typeSystem;
+        this.object = typeSystem.getClassType(ClassNames.OBJECT);
+        this.cloneable = typeSystem.getClassType(ClassNames.CLONEABLE);
+        this.serializable = typeSystem.getClassType(ClassNames.SERIALIZABLE);
+        List<JClass> classes = hierarchy.allClasses().toList();
+        Map<JClass, List<JClass>> subclasses = Maps.newMap();
+        List<JClass> roots = new ArrayList<>();
+        for (JClass c : classes) {
+            if (c.isInterface()) {
+                interfaceIds.put(c, interfaceIds.size());
+            }
+            if (c.getSuperClass() == null) {
+                roots.add(c);
+            } else {
+                subclasses.computeIfAbsent(c.getSuperClass(),
+                        unused -> new ArrayList<>()).add(c);
+            }
+        }
+        lastIds = new int[classes.size()];
+        superinterfaces = new BitSet[classes.size()];
+        for (JClass root : roots) {
+            number(root, subclasses);
+        }
+    }
+
+    /**
+     * Numbers the classes in the superclass tree rooted by {@code root}
+     * in pre-order, and computes their superinterfaces.
+     */
+    private void number(JClass root, Map<JClass, List<JClass>> subclasses) {
+        Deque<JClass> stack = new ArrayDeque<>();
+        List<JClass> visited = new ArrayList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            JClass c = stack.pop();
+            int id = classIds.size();
+            classIds.put(c, id);
+            visited.add(c);
+            JClass superClass = c.getSuperClass();
+            BitSet supers = superClass == null ? new BitSet() :
+                    superinterfaces[classIds.get(superClass)];
+            if (!c.getInterfaces().isEmpty()) {
+                supers = (BitSet) supers.clone();
+                for (JClass iface : c.getInterfaces()) {
+                    addSuperinterfaces(iface, supers);
+                }
+            }
+            superinterfaces[id] = supers;
+            subclasses.getOrDefault(c, List.of()).forEach(stack::push);
+        }
+        // subclasses are numbered after their superclasses, so in reverse
+        // pre-order the subtree of each class is done before its superclass
+        for (int i = visited.size() - 1; i >= 0; --i) {
+            JClass c = visited.get(i);
+            int id = classIds.get(c);
+            lastIds[id] = Math.max(lastIds[id], id);
+            if (c.getSuperClass() != null) {
+                int superId = classIds.get(c.getSuperClass());
+                lastIds[superId] = Math.max(lastIds[superId], lastIds[id]);
+            }
+        }
+    }
+
+    private void addSuperinterfaces(JClass iface, BitSet supers) {
+        Integer id = interfaceIds.get(iface);
+        if (id != null && !supers.get(id)) {
+            supers.set(id);
+            iface.getInterfaces().forEach(i -> addSuperinterfaces(i, supers));
+        }
+    }
+
+    @Override
+    public boolean isSubtype(Type supertype, Type subtype) {
+        if (subtype.equals(supertype)) {
+            return true;
+        } else if (subtype instanceof NullType) {
+            return supertype instanceof ReferenceType;
+        } else if (subtype instanceof ClassType subclass) {
+            return supertype instanceof ClassType superclass &&
+                    isSubclass(superclass, subclass);
+        } else if (subtype instanceof ArrayType subArray) {
+            if (supertype instanceof ClassType) {
+                return supertype == object || supertype == cloneable ||
+                        supertype == serializable;
+            } else if (supertype instanceof ArrayType superArray) {
+                return isSubtype(superArray.elementType(), subArray.elementType());
+            }
+        }
+        return false;
+    }
+
+    private boolean isSubclass(ClassType supertype, ClassType subtype) {
+        if (supertype == object) {
+            return true;
+        }
+        JClass superclass = supertype.getJClass();
+        JClass subclass = subtype.getJClass();
+        Integer superId = superclass.isInterface() ?
+                interfaceIds.get(superclass) : classIds.get(superclass);
+        Integer subId = classIds.get(subclass);
+        if (superId == null || subId == null) {
+            // classes unknown to the index
+            return typeSystem.isSubtype(supertype, subtype);
+        }
+        return superclass.isInterface() ?
+                superinterfaces[subId].get(superId) :
+                superId <= subId && subId <= lastIds[superId];
+    }
+
+    @Override
+    public Type getType(JClassLoader loader, String typeName) {
+        return typeSystem.getType(loader, typeName);
+    }
+
+    @Override
+    public Type getType(String typeName) {
+        return typeSystem.getType(typeName);
+    }
+
+    @Override
+    public ClassType getClassType(JClassLoader loader, String className) {
+        return typeSystem.getClassType(loader, className);
+    }
+
+    @Override
+    public ClassType getClassType(String className) {
+        return typeSystem.getClassType(className);
+    }
+
+    @Override
+    public ArrayType getArrayType(Type baseType, int dimensions) {
+        return typeSystem.getArrayType(baseType, dimensions);
+    }
+
+    @Override
+    public ClassType getBoxedType(PrimitiveType type) {
+        return typeSystem.getBoxedType(type);
+    }
+
+    @Override
+    public PrimitiveType getUnboxedType(ClassType type) {
+        return typeSystem.getUnboxedType(type);
+    }
+}
@@ -38,23 +38,58 @@ public class InterCPTest {
         );
     }
 
+    /**
+     * Tests given case with options appended to the options of
+     * inter-procedural constant propagation, and extra arguments.
+     * The result must not change under the options.
+     */
+    void test(String inputClass, String cpOpts, String... args) {
+        String[] opts = new String[args.length + 3];
+        opts[0] = "edge-refine:false;alias-aware:false" + cpOpts;
+        opts[1] = "-a";
+        opts[2] = "cg=algorithm:cha";
+        System.arraycopy(args, 0, opts, 3, args.length);
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID, opts);
+    }
+
     @Test
     public void testExample() {
         test("Example");
+        // solving SCCs in parallel
+        test("Example", ";parallel:true");
+        // spilling facts out of memory
+        test("Example", ";fact-budget:1");
+        // building ICFG edges on demand, with the option dump which is
+        // ignored for lazy ICFG
+        test("Example", "", "-a", "icfg=lazy:true;dump:true");
+        // spilling facts of methods whose ICFG edges have been released
+        test("Example", ";fact-budget:1", "-a", "icfg=lazy:true");
     }
 
     @Test
     public void testReference() {
         test("Reference");
+        test("Reference", ";parallel:true");
+        test("Reference", ";fact-budget:1");
+        test("Reference", "", "-a", "icfg=lazy:true;dump:true");
+        test("Reference", ";fact-budget:1", "-a", "icfg=lazy:true");
     }
 
     @Test
     public void testFibonacci() {
         test("Fibonacci");
+        test("Fibonacci", ";parallel:true");
+        test("Fibonacci", ";fact-budget:1");
+        test("Fibonacci", "", "-a", "icfg=lazy:true;dump:true");
+        test("Fibonacci", ";fact-budget:1", "-a", "icfg=lazy:true");
     }
 
     @Test
     public void testMultiIntArgs() {
         test("MultiIntArgs");
+        test("MultiIntArgs", ";parallel:true");
+        test("MultiIntArgs", ";fact-budget:1");
+        test("MultiIntArgs", "", "-a", "icfg=lazy:true;dump:true");
+        test("MultiIntArgs", ";fact-budget:1", "-a", "icfg=lazy:true");
     }
 }
@@ -0,0 +1,56 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SpillFileTest {
+
+    @Test
+    public void testRespill() {
+        SpillFile file = new SpillFile();
+        try {
+            SpillFile.Region region = null;
+            byte[] bytes = new byte[0];
+            // the facts of a method grow a little on each respill
+            for (int i = 1; i <= 1000; ++i) {
+                bytes = Arrays.copyOf(bytes, i * 4096);
+                bytes[bytes.length - 1] = (byte) i;
+                region = file.write(region, bytes, bytes.length);
+            }
+            assertArrayEquals(bytes, file.read(region));
+            // outgrown regions are reused instead of piling up in the file
+            assertTrue(file.size() <= 1 << 26);
+            SpillFile.Region small = file.write(null, bytes, 100);
+            assertSame(small, file.write(small, bytes, 64));
+        } finally {
+            file.close();
+        }
+    }
+}
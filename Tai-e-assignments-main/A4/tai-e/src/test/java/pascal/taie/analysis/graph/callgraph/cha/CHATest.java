@@ -28,26 +28,38 @@ import pascal.taie.analysis.Tests;
 public class CHATest {
     
     protected static void test(String main) {
-        Tests.test(main, "src/test/resources/cha/", "cg", "algorithm:cha");
+        test(main, "");
+    }
+
+    /**
+     * Tests given case with options appended to the options of CHA.
+     * The call graph must not change under the options.
+     */
+    protected static void test(String main, String opts) {
+        Tests.test(main, "src/test/resources/cha/", "cg", "algorithm:cha" + opts);
     }
 
     @Test
     public void testStaticCall() {
         test("StaticCall");
+        test("StaticCall", ";parallel:true");
     }
 
     @Test
     public void testVirtualCall() {
         test("VirtualCall");
+        test("VirtualCall", ";parallel:true");
     }
 
     @Test
     public void testInterface() {
         test("Interface");
+        test("Interface", ";parallel:true");
     }
 
     @Test
     public void testAbstractMethod() {
         test("AbstractMethod");
+        test("AbstractMethod", ";parallel:true");
     }
 }
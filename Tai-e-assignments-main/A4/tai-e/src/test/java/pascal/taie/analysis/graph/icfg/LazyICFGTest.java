@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class LazyICFGTest {
+
+    @Test
+    public void testReenterReleasedMethod() {
+        Main.main(new String[]{
+                "-pp", "-cp", "src/test/resources/dataflow/constprop/inter",
+                "-m", "MultiIntArgs",
+                "-a", "cg=algorithm:cha", "-a", "icfg=lazy:true"});
+        LazyICFG icfg = World.get().getResult(ICFGBuilder.ID);
+        // foo() is called from two call sites of main()
+        JMethod foo = World.get().getClassHierarchy()
+                .getClass("MultiIntArgs").getDeclaredMethod("foo");
+        Stmt entry = icfg.getEntryOf(foo);
+        Stmt inner = icfg.getSuccsOf(entry).iterator().next();
+        assertEquals(1, icfg.getNumberOfPinnedMethods());
+        icfg.release(foo);
+        assertEquals(0, icfg.getNumberOfPinnedMethods());
+        // entering foo() again re-pins its cached edges and its inner nodes,
+        // without building the edges of other methods
+        icfg.getSuccsOf(entry);
+        assertEquals(foo, icfg.getContainingMethodOf(inner));
+        icfg.getSuccsOf(inner);
+        assertEquals(1, icfg.getNumberOfPinnedMethods());
+        assertFalse(icfg.isComplete());
+    }
+}
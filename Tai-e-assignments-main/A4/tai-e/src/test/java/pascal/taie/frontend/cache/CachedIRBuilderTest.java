@@ -0,0 +1,206 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.frontend.cache;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRBuilder;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassHierarchyImpl;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassLoader;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Modifier;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.language.type.TypeSystemImpl;
+import pascal.taie.language.type.VoidType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class CachedIRBuilderTest {
+
+    @Test
+    public void testCachedIR() throws IOException {
+        Path classes = Files.createTempDirectory("classes");
+        Path classFile = Files.write(classes.resolve("C.class"), new byte[]{1});
+        Path cacheDir = Files.createTempDirectory("ir-cache");
+        ClassType type = setUpWorld();
+        JMethod method = new JMethod(type.getJClass(), "m",
+                Set.of(Modifier.STATIC), List.of(type), PrimitiveType.INT,
+                List.of(), AnnotationHolder.emptyHolder(), null, null);
+        IR ir = buildIR(method, type);
+        IRBuilder builder = new IRBuilder() {
+            @Override
+            public IR buildIR(JMethod m) {
+                return ir;
+            }
+
+            @Override
+            public void buildAll(ClassHierarchy hierarchy) {
+            }
+        };
+        try {
+            CachedIRBuilder first = new CachedIRBuilder(builder,
+                    new IRCache(cacheDir.toFile(), classes.toString()));
+            assertSame(ir, first.buildIR(method));
+            assertEquals(1, first.getNumberOfMisses());
+            // a new run loads the IR from the disk
+            CachedIRBuilder second = new CachedIRBuilder(builder,
+                    new IRCache(cacheDir.toFile(), classes.toString()));
+            IR cached = second.buildIR(method);
+            assertEquals(1, second.getNumberOfHits());
+            assertNotSame(ir, cached);
+            assertEquals(ir.getStmts().toString(), cached.getStmts().toString());
+            assertEquals(ir.getVars().toString(), cached.getVars().toString());
+            assertEquals(ir.getParams().toString(), cached.getParams().toString());
+            assertEquals(ir.getReturnVars().toString(),
+                    cached.getReturnVars().toString());
+            for (int i = 0; i < ir.getStmts().size(); ++i) {
+                assertEquals(ir.getStmt(i).getLineNumber(),
+                        cached.getStmt(i).getLineNumber());
+            }
+            assertSame(cached.getStmt(3), ((If) cached.getStmt(1)).getTarget());
+            assertEquals(IntLiteral.get(1), cached.getVar(2).getTempConstValue());
+            // relevant statements are recorded by the rebuilt statements
+            Var p = cached.getParam(0);
+            assertEquals(List.of(cached.getStmt(0)), p.getLoadFields());
+            assertEquals(List.of(cached.getStmt(3)), p.getInvokes());
+            // changing the class file drops its cached IR
+            Files.write(classFile, new byte[]{2});
+            CachedIRBuilder third = new CachedIRBuilder(builder,
+                    new IRCache(cacheDir.toFile(), classes.toString()));
+            assertSame(ir, third.buildIR(method));
+            assertEquals(0, third.getNumberOfHits());
+        } finally {
+            World.reset();
+            delete(classes);
+            delete(cacheDir);
+        }
+    }
+
+    /**
+     * Sets up a world containing only class C.
+     *
+     * @return the type of C.
+     */
+    private static ClassType setUpWorld() {
+        ClassHierarchyImpl hierarchy = new ClassHierarchyImpl();
+        JClass[] c = new JClass[1];
+        JClassLoader loader = new JClassLoader() {
+            @Override
+            public JClass loadClass(String name) {
+                return name.equals("C") ? c[0] : null;
+            }
+
+            @Override
+            public Collection<JClass> getLoadedClasses() {
+                return List.of(c[0]);
+            }
+        };
+        c[0] = new JClass(loader, "C");
+        hierarchy.setDefaultClassLoader(loader);
+        hierarchy.setBootstrapClassLoader(loader);
+        TypeSystem typeSystem = new TypeSystemImpl(hierarchy);
+        World world = new World();
+        world.setClassHierarchy(hierarchy);
+        world.setTypeSystem(typeSystem);
+        World.set(world);
+        return typeSystem.getClassType("C");
+    }
+
+    /**
+     * Builds IR of:
+     * <pre>
+     * static int m(C p) {
+     *   x = p.f;
+     *   if (x == 1) goto 3;
+     *   t = new C;
+     *   p.n();
+     *   return x;
+     * }
+     * </pre>
+     */
+    private static IR buildIR(JMethod method, ClassType type) {
+        JClass c = type.getJClass();
+        Var p = new Var(method, "p", type, 0);
+        Var x = new Var(method, "x", PrimitiveType.INT, 1);
+        Var one = new Var(method, "%intconst0", PrimitiveType.INT, 2,
+                IntLiteral.get(1));
+        Var t = new Var(method, "t", type, 3);
+        Stmt load = new LoadField(x, new InstanceFieldAccess(
+                FieldRef.get(c, "f", PrimitiveType.INT, false), p));
+        If ifStmt = new If(new ConditionExp(ConditionExp.Op.EQ, x, one));
+        Stmt newStmt = new New(method, t, new NewInstance(type));
+        Stmt invoke = new Invoke(method, new InvokeVirtual(
+                MethodRef.get(c, "n", List.of(), VoidType.VOID, false),
+                p, List.of()));
+        Stmt ret = new Return(x);
+        ifStmt.setTarget(invoke);
+        List<Stmt> stmts = List.of(load, ifStmt, newStmt, invoke, ret);
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+            stmts.get(i).setLineNumber(10 + i);
+        }
+        return new DefaultIR(method, null, List.of(p), Set.of(x),
+                List.of(p, x, one, t), stmts, List.of());
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRBuilder;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.type.VoidType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class JMethodTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void testConcurrentGetIR() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        World world = new World();
+        world.setIRBuilder(new IRBuilder() {
+            @Override
+            public IR buildIR(JMethod method) {
+                builds.incrementAndGet();
+                try {
+                    // widen the window for the other threads to race
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new DefaultIR(method, null, List.of(), Set.of(),
+                        List.of(), List.of(), List.of());
+            }
+
+            @Override
+            public void buildAll(ClassHierarchy hierarchy) {
+            }
+        });
+        World.set(world);
+        JMethod method = new JMethod(new JClass(null, "C"), "m", Set.of(),
+                List.of(), VoidType.VOID, List.of(),
+                AnnotationHolder.emptyHolder(), null, null);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<IR>> irs = new ArrayList<>();
+            for (int i = 0; i < THREADS; ++i) {
+                irs.add(executor.submit(() -> {
+                    start.await();
+                    return method.getIR();
+                }));
+            }
+            start.countDown();
+            // the IR is built once and shared by all threads
+            IR ir = irs.get(0).get();
+            for (Future<IR> other : irs) {
+                assertSame(ir, other.get());
+            }
+            assertEquals(1, builds.get());
+            assertSame(ir, method.getIR());
+        } finally {
+            executor.shutdown();
+            World.reset();
+        }
+    }
+}
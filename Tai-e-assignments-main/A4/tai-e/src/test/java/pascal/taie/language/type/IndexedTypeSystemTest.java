@@ -0,0 +1,64 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.type;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.language.classes.JClass;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IndexedTypeSystemTest {
+
+    /**
+     * Maximum number of types to be compared pairwise.
+     */
+    private static final int MAX_TYPES = 2000;
+
+    @Test
+    public void testIndexedTypeSystem() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/rta/", "-m", "Interface");
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        TypeSystem indexed = new IndexedTypeSystem(
+                typeSystem, World.get().getClassHierarchy());
+        List<Type> types = new ArrayList<>();
+        World.get().getClassHierarchy()
+                .allClasses()
+                .limit(MAX_TYPES / 2)
+                .map(JClass::getType)
+                .forEach(t -> {
+                    types.add(t);
+                    types.add(typeSystem.getArrayType(t, 1));
+                });
+        // the index must agree with the default type system on all pairs
+        for (Type sup : types) {
+            for (Type sub : types) {
+                Assert.assertEquals(sup + " :> " + sub,
+                        typeSystem.isSubtype(sup, sub), indexed.isSubtype(sup, sub));
+            }
+        }
+    }
+}
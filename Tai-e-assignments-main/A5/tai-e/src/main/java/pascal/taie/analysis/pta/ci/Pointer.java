@@ -22,6 +22,8 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.language.type.Type;
+
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
  *
@@ -34,4 +36,9 @@ abstract class Pointer {
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    /**
+     * @return the declared type of this pointer.
+     */
+    abstract Type getType();
 }
@@ -49,6 +49,18 @@ class PointerFlowGraph {
      */
     private final Map<Var, VarPtr> varPtrs = Maps.newMap();
 
+    /**
+     * Map from each collapsed variable to the variable representing it.
+     *
+     * @see VarCollapser
+     */
+    private final Map<Var, Var> collapsedVars = Maps.newMap();
+
+    /**
+     * Map from a variable to the variables collapsed into it.
+     */
+    private final MultiMap<Var, Var> collapsedInto = Maps.newMultiMap();
+
     /**
      * Map from JField to StaticField node.
      */
@@ -78,15 +90,57 @@ class PointerFlowGraph {
 
     /**
      * @return the corresponding Var node for the given variable.
+     * For a collapsed variable, this is the Var node of the variable
+     * representing it.
      */
     VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
+        Var rep = collapsedVars.getOrDefault(var, var);
+        return varPtrs.computeIfAbsent(rep, v -> {
             VarPtr varPtr = new VarPtr(v);
             pointers.add(varPtr);
             return varPtr;
         });
     }
 
+    /**
+     * Collapses {@code var} into {@code rep}, so that both variables
+     * are represented by the Var node of {@code rep}.
+     */
+    void collapseVar(Var var, Var rep) {
+        collapsedVars.put(var, rep);
+        collapsedInto.put(rep, var);
+    }
+
+    /**
+     * @return the variables represented by the given Var node, i.e.,
+     * its own variable and the variables collapsed into it.
+     */
+    Set<Var> getVarsOf(VarPtr varPtr) {
+        Set<Var> collapsed = collapsedInto.get(varPtr.getVar());
+        if (collapsed.isEmpty()) {
+            return Set.of(varPtr.getVar());
+        }
+        Set<Var> vars = Sets.newHybridSet(collapsed);
+        vars.add(varPtr.getVar());
+        return vars;
+    }
+
+    /**
+     * Gives each collapsed variable its own Var node, whose points-to set
+     * is copied from the Var node representing it. This is done after
+     * the analysis finishes, so that the results contain all variables.
+     */
+    void expandCollapsedVars() {
+        collapsedVars.forEach((var, rep) -> {
+            VarPtr varPtr = new VarPtr(var);
+            getVarPtr(rep).getPointsToSet().forEach(varPtr.getPointsToSet()::addObject);
+            varPtrs.put(var, varPtr);
+            pointers.add(varPtr);
+        });
+        collapsedVars.clear();
+        collapsedInto.clear();
+    }
+
     /**
      * @return the corresponding StaticField node for the given static field.
      */
@@ -31,6 +31,8 @@ import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.solver.TypeFilter;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -47,6 +49,8 @@ class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
     private DefaultCallGraph callGraph;
@@ -59,7 +63,20 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    /**
+     * Filter of objects by the declared types of pointers,
+     * or null if type filtering is disabled.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * Whether collapse the variables that must have the same points-to
+     * sets before processing their methods.
+     */
+    private boolean collapseVars;
+
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
     }
 
@@ -69,6 +86,9 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        if (collapseVars) {
+            pointerFlowGraph.expandCollapsedVars();
+        }
     }
 
     /**
@@ -80,6 +100,9 @@ class Solver {
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
+        typeFilter = options.getBooleanOrDefault("type-filter", false) ?
+                new TypeFilter(World.get().getTypeSystem()) : null;
+        collapseVars = options.getBooleanOrDefault("collapse-vars", false);
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
@@ -94,6 +117,11 @@ class Solver {
         if (!callGraph.contains(method))
         {
             callGraph.addReachableMethod(method);
+            if (collapseVars)
+            {
+                VarCollapser.collapse(method.getIR())
+                        .forEach(pointerFlowGraph::collapseVar);
+            }
             for (Stmt stmt: method.getIR().getStmts())
             {
                 stmt.accept(stmtProcessor);
@@ -120,7 +148,11 @@ class Solver {
         public Void visit(Copy stmt) {
             Pointer src = pointerFlowGraph.getVarPtr(stmt.getRValue());
             Pointer tgt = pointerFlowGraph.getVarPtr(stmt.getLValue());
-            addPFGEdge(src,tgt);
+            // the copies between collapsed variables need no edges
+            if (src != tgt)
+            {
+                addPFGEdge(src,tgt);
+            }
             return null;
         }
 
@@ -191,38 +223,50 @@ class Solver {
             PointsToSet delta = propagate(n,pts);
             if (n instanceof VarPtr varPtr)
             {
-                for (Obj obj:delta)
+                for (Var var:pointerFlowGraph.getVarsOf(varPtr))
                 {
-                    for (LoadField loadField:varPtr.getVar().getLoadFields())
-                    {
-                        Pointer src = pointerFlowGraph.getInstanceField(obj,loadField.getFieldAccess().getFieldRef().resolve());
-                        Pointer tgt = pointerFlowGraph.getVarPtr(loadField.getLValue());
-                        addPFGEdge(src,tgt);
-                    }
-                    for (StoreField storeField:varPtr.getVar().getStoreFields())
-                    {
-                        Pointer src = pointerFlowGraph.getVarPtr(storeField.getRValue());
-                        Pointer tgt = pointerFlowGraph.getInstanceField(obj,storeField.getFieldAccess().getFieldRef().resolve());
-                        addPFGEdge(src,tgt);
-                    }
-                    for (LoadArray loadArray:varPtr.getVar().getLoadArrays())
+                    for (Obj obj:delta)
                     {
-                        Pointer src = pointerFlowGraph.getArrayIndex(obj);
-                        Pointer tgt = pointerFlowGraph.getVarPtr(loadArray.getLValue());
-                        addPFGEdge(src,tgt);
+                        for (LoadField loadField:var.getLoadFields())
+                        {
+                            Pointer src = pointerFlowGraph.getInstanceField(obj,loadField.getFieldAccess().getFieldRef().resolve());
+                            Pointer tgt = pointerFlowGraph.getVarPtr(loadField.getLValue());
+                            addPFGEdge(src,tgt);
+                        }
+                        for (StoreField storeField:var.getStoreFields())
+                        {
+                            Pointer src = pointerFlowGraph.getVarPtr(storeField.getRValue());
+                            Pointer tgt = pointerFlowGraph.getInstanceField(obj,storeField.getFieldAccess().getFieldRef().resolve());
+                            addPFGEdge(src,tgt);
+                        }
+                        for (LoadArray loadArray:var.getLoadArrays())
+                        {
+                            Pointer src = pointerFlowGraph.getArrayIndex(obj);
+                            Pointer tgt = pointerFlowGraph.getVarPtr(loadArray.getLValue());
+                            addPFGEdge(src,tgt);
+                        }
+                        for (StoreArray storeArray:var.getStoreArrays())
+                        {
+                            Pointer src = pointerFlowGraph.getVarPtr(storeArray.getRValue());
+                            Pointer tgt = pointerFlowGraph.getArrayIndex(obj);
+                            addPFGEdge(src,tgt);
+                        }
+                        processCall(var,obj);
                     }
-                    for (StoreArray storeArray:varPtr.getVar().getStoreArrays())
-                    {
-                        Pointer src = pointerFlowGraph.getVarPtr(storeArray.getRValue());
-                        Pointer tgt = pointerFlowGraph.getArrayIndex(obj);
-                        addPFGEdge(src,tgt);
-                    }
-                    processCall(varPtr.getVar(),obj);
                 }
             }
         }
     }
 
+    /**
+     * @return true if the object can be propagated to the pointer
+     * under type filtering, otherwise false.
+     */
+    private boolean isAccepted(Pointer pointer, Obj obj) {
+        return typeFilter == null ||
+                typeFilter.accepts(pointer.getType(), obj.getType());
+    }
+
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
@@ -233,7 +277,7 @@ class Solver {
         PointsToSet delta = new PointsToSet();
         for (Obj obj:pointsToSet)
         {
-            if (!ptn.contains(obj))
+            if (!ptn.contains(obj) && isAccepted(pointer, obj))
             {
                 delta.addObject(obj);
             }
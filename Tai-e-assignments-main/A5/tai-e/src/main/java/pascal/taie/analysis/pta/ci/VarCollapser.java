@@ -0,0 +1,88 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Steensgaard-style pre-pass of pointer analysis, which finds the variables
+ * that always have the same points-to sets.
+ * <p>
+ * If the only definition of a local variable x is a copy x = y, then all
+ * objects pointed to by x come from y, so that pt(x) = pt(y). Such
+ * variables are unified by union-find, and each set of unified variables
+ * can be represented by one pointer in the pointer flow graph.
+ * Parameters and this variables are never collapsed, as they receive
+ * objects from call sites besides their definitions.
+ */
+final class VarCollapser {
+
+    private VarCollapser() {
+    }
+
+    /**
+     * @return map from each collapsed variable in the given IR to
+     * the variable representing it.
+     */
+    static Map<Var, Var> collapse(IR ir) {
+        Map<Var, Integer> defCounts = Maps.newMap();
+        for (Stmt stmt : ir) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    defCounts.merge(var, 1, Integer::sum);
+                }
+            });
+        }
+        // each collapsible variable is linked to the source of its copy;
+        // it is always a root when linked, as only its copy links it
+        Map<Var, Var> parents = Maps.newMap();
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Copy copy) {
+                Var to = copy.getLValue();
+                Var from = copy.getRValue();
+                if (defCounts.get(to) == 1 && !to.equals(ir.getThis()) &&
+                        !ir.getParams().contains(to) &&
+                        !find(parents, from).equals(to)) {
+                    parents.put(to, from);
+                }
+            }
+        }
+        Map<Var, Var> reps = Maps.newMap();
+        parents.keySet().forEach(var -> reps.put(var, find(parents, var)));
+        return reps;
+    }
+
+    private static Var find(Map<Var, Var> parents, Var var) {
+        Var root = var;
+        while (parents.containsKey(root)) {
+            root = parents.get(root);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.solver;
+
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Filters the objects propagated to pointers by the declared types of
+ * the pointers: a pointer only accepts the objects whose types are
+ * subtypes of its declared type.
+ * <p>
+ * The subtype relation is kept in a bit-matrix whose rows are indexed by
+ * declared types and columns by the types of objects. Each cell is
+ * computed by {@link TypeSystem#isSubtype(Type, Type)} at most once, and
+ * all later queries of the same pair of types cost O(1).
+ */
+public class TypeFilter {
+
+    private final TypeSystem typeSystem;
+
+    private final Type object;
+
+    /**
+     * Ids of the types of objects, i.e., the columns of the matrix.
+     */
+    private final Map<Type, Integer> objTypeIds = Maps.newMap();
+
+    /**
+     * Rows of the matrix, indexed by declared types.
+     */
+    private final Map<Type, Row> rows = Maps.newMap();
+
+    public TypeFilter(TypeSystem typeSystem) {
+        this.typeSystem = typeSystem;
+        this.object = typeSystem.getClassType(ClassNames.OBJECT);
+    }
+
+    /**
+     * @return true if a pointer of {@code declaredType} can point to
+     * an object of {@code objType}, otherwise false.
+     */
+    public boolean accepts(Type declaredType, Type objType) {
+        if (!(declaredType instanceof ClassType || declaredType instanceof ArrayType) ||
+                declaredType.equals(object)) {
+            // declared types which do not restrict objects, e.g., null type
+            return true;
+        }
+        Row row = rows.computeIfAbsent(declaredType, unused -> new Row());
+        int column = objTypeIds.computeIfAbsent(objType,
+                unused -> objTypeIds.size());
+        if (!row.known.get(column)) {
+            row.known.set(column);
+            if (typeSystem.isSubtype(declaredType, objType)) {
+                row.subtypes.set(column);
+            }
+        }
+        return row.subtypes.get(column);
+    }
+
+    private static class Row {
+
+        /**
+         * Columns which have been computed.
+         */
+        private final BitSet known = new BitSet();
+
+        /**
+         * Columns whose types are subtypes of the declared type.
+         */
+        private final BitSet subtypes = new BitSet();
+    }
+}
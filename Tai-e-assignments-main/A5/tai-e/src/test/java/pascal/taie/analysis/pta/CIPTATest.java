@@ -23,7 +23,20 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.ci.CIPTA;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.TypeSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CIPTATest {
 
@@ -78,4 +91,57 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testCollapseVars() {
+        // collapsing variables must not change the points-to sets
+        Tests.testCIPTA(DIR, "Assign", "collapse-vars:true");
+        Tests.testCIPTA(DIR, "Assign2", "collapse-vars:true");
+        Tests.testCIPTA(DIR, "Call", "collapse-vars:true");
+    }
+
+    @Test
+    public void testTypeFilter() throws IOException {
+        // Array stores an object of A into an array of B, and loads it to
+        // variable o of main, which is pruned by type filtering
+        PointerAnalysisResult result = solve("Array", "");
+        assertEquals(1, result.getPointsToSet(getVar(result, "main", "o")).size());
+        result = solve("Array", "type-filter:true");
+        assertTrue(result.getPointsToSet(getVar(result, "main", "o")).isEmpty());
+        // no variable points to the objects of other types
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        for (Var var : result.getVars()) {
+            for (Obj obj : result.getPointsToSet(var)) {
+                assertTrue(var + " -> " + obj,
+                        typeSystem.isSubtype(var.getType(), obj.getType()));
+            }
+        }
+    }
+
+    /**
+     * Runs pointer analysis on given test case without comparing the results.
+     */
+    private static PointerAnalysisResult solve(String main, String opts)
+            throws IOException {
+        Path file = Files.createTempFile(main, ".txt");
+        try {
+            Main.main(new String[]{
+                    "-pp", "-cp", "src/test/resources/pta/" + DIR, "-m", main,
+                    "-a", "cipta=implicit-entries:false;only-app:true;" +
+                    "action:dump;file:" + file + ";" + opts});
+            return World.get().getResult(CIPTA.ID);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Var getVar(PointerAnalysisResult result,
+                              String methodName, String varName) {
+        return result.getVars()
+                .stream()
+                .filter(v -> v.getMethod().getName().equals(methodName) &&
+                        v.getName().equals(varName))
+                .findFirst()
+                .orElseThrow();
+    }
 }
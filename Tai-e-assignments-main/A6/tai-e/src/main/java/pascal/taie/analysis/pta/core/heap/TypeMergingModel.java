@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.World;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heap model which merges allocation sites by type to reduce the number
+ * of abstract objects. Compared with {@link AllocationSiteBasedModel},
+ * <ul>
+ *     <li>the objects of the types given by option {@code merged-types}
+ *     are merged into one object per type;</li>
+ *     <li>for each other type, at most {@code max-objs-per-type}
+ *     allocation sites have their own objects, and the objects of the
+ *     remaining sites of the type are merged. The sites are counted in
+ *     the order in which the pointer analysis reaches them.</li>
+ * </ul>
+ * The limit does not apply to precision-critical types, i.e., arrays of
+ * reference types, and classes declaring (or inheriting) an instance field
+ * whose type is precision-critical or may hold any objects (interfaces,
+ * abstract classes and {@code Object}). Merging objects of these types
+ * would also merge the object graphs reachable from them. Other types,
+ * e.g., {@code String} whose only reference field is a byte array, are
+ * limited, as merging their objects loses precision only on objects
+ * that hold no other objects.
+ */
+public class TypeMergingModel extends AbstractHeapModel {
+
+    private final TypeSystem typeSystem;
+
+    /**
+     * Types whose objects are always merged.
+     */
+    private final Set<Type> mergedTypes = Sets.newSet();
+
+    /**
+     * Maximum number of allocation sites with their own objects per type.
+     * Non-positive values mean no limit.
+     */
+    private final int maxObjsPerType;
+
+    /**
+     * Allocation sites with their own objects of each type.
+     */
+    private final Map<Type, Set<New>> allocSites = Maps.newMap();
+
+    private final Map<Type, Boolean> precisionCritical = Maps.newMap();
+
+    public TypeMergingModel(AnalysisOptions options) {
+        super(options);
+        typeSystem = World.get().getTypeSystem();
+        String types = options.getString("merged-types");
+        if (types != null) {
+            Arrays.stream(types.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .map(typeSystem::getType)
+                    .forEach(mergedTypes::add);
+        }
+        maxObjsPerType = options.get("max-objs-per-type") != null ?
+                options.getInt("max-objs-per-type") : 0;
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        Type type = allocSite.getRValue().getType();
+        if (mergedTypes.contains(type)) {
+            return getMergedObj(allocSite);
+        }
+        if (maxObjsPerType > 0 && !isPrecisionCritical(type)) {
+            Set<New> sites = allocSites.computeIfAbsent(type,
+                    unused -> Sets.newHybridSet());
+            if (sites.size() >= maxObjsPerType && !sites.contains(allocSite)) {
+                return getMergedObj(allocSite);
+            }
+            sites.add(allocSite);
+        }
+        return getNewObj(allocSite);
+    }
+
+    private boolean isPrecisionCritical(Type type) {
+        Boolean result = precisionCritical.get(type);
+        if (result == null) {
+            // assume the type is precision-critical while checking its
+            // fields, so that recursive types are precision-critical
+            precisionCritical.put(type, true);
+            result = computePrecisionCritical(type);
+            precisionCritical.put(type, result);
+        }
+        return result;
+    }
+
+    private boolean computePrecisionCritical(Type type) {
+        if (type instanceof ArrayType arrayType) {
+            return arrayType.elementType() instanceof ReferenceType;
+        } else if (type instanceof ClassType classType) {
+            for (JClass c = classType.getJClass(); c != null; c = c.getSuperClass()) {
+                for (JField field : c.getDeclaredFields()) {
+                    if (!field.isStatic() && mayHoldObjects(field.getType())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the objects of given type may hold other objects.
+     */
+    private boolean mayHoldObjects(Type type) {
+        if (type instanceof ClassType classType) {
+            JClass jclass = classType.getJClass();
+            return jclass == null || jclass.isAbstract() || jclass.isInterface() ||
+                    jclass.getSuperClass() == null || // java.lang.Object
+                    isPrecisionCritical(type);
+        }
+        return type instanceof ArrayType && isPrecisionCritical(type);
+    }
+}
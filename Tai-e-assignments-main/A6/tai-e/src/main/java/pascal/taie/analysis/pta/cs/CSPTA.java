@@ -27,6 +27,8 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.TypeMergingModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
@@ -51,7 +53,7 @@ public class CSPTA extends ProgramAnalysis {
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
         Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
+                getHeapModel(options),
                 getContextSelector(options.getString("cs")));
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
@@ -59,6 +61,17 @@ public class CSPTA extends ProgramAnalysis {
         return result;
     }
 
+    private static HeapModel getHeapModel(AnalysisOptions options) {
+        String heapModel = options.getString("heap-model");
+        if (heapModel == null || heapModel.equals("allocation-site")) {
+            return new AllocationSiteBasedModel(options);
+        } else if (heapModel.equals("type-merging")) {
+            return new TypeMergingModel(options);
+        } else {
+            throw new ConfigException("Unexpected heap model: " + heapModel);
+        }
+    }
+
     private static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
@@ -45,8 +45,10 @@ import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.solver.TypeFilter;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.analysis.pta.pts.PointsToSetStore;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
@@ -54,11 +56,23 @@ import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * Number of processed work-list entries at which the stable points-to
+     * sets are interned for the first time (when hash-consing is enabled).
+     */
+    private static final long INITIAL_INTERN_POINT = 1024;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
@@ -73,6 +87,36 @@ class Solver {
 
     private WorkList workList;
 
+    /**
+     * Filter of objects by the declared types of pointers,
+     * or null if type filtering is disabled.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * Offline substitution of pointer-equivalent variables,
+     * or null if it is disabled.
+     */
+    private VarSubstitution varSubstitution;
+
+    /**
+     * Store of hash-consed points-to sets, or null if hash-consing
+     * is disabled.
+     */
+    private PointsToSetStore ptsStore;
+
+    /**
+     * Pointers whose points-to sets have changed since the last time
+     * the stable points-to sets were interned.
+     */
+    private Set<Pointer> changedPointers;
+
+    /**
+     * Number of work-list entries processed so far, and the number at
+     * which the stable points-to sets are interned next time.
+     */
+    private long processedEntries, nextInternPoint;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
@@ -85,6 +129,13 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        if (varSubstitution != null) {
+            expandSubstitutedVars();
+        }
+        if (ptsStore != null) {
+            // points-to sets do not change after solving
+            hashConsPointsToSets();
+        }
     }
 
     private void initialize() {
@@ -92,6 +143,15 @@ class Solver {
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
+        typeFilter = options.getBooleanOrDefault("type-filter", false) ?
+                new TypeFilter(World.get().getTypeSystem()) : null;
+        varSubstitution = options.getBooleanOrDefault("var-substitution", false) ?
+                new VarSubstitution() : null;
+        if (options.getBooleanOrDefault("hash-cons-pts", false)) {
+            ptsStore = new PointsToSetStore();
+            changedPointers = Sets.newSet();
+            nextInternPoint = INITIAL_INTERN_POINT;
+        }
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -108,6 +168,10 @@ class Solver {
         if (!callGraph.contains(csMethod))
         {
             callGraph.addReachableMethod(csMethod);
+            if (varSubstitution != null)
+            {
+                varSubstitution.process(csMethod.getMethod());
+            }
             StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
             for (Stmt stmt:csMethod.getMethod().getIR().getStmts())
             {
@@ -135,7 +199,7 @@ class Solver {
 
         @Override
         public Void visit(New stmt) {
-            CSVar csVar = csManager.getCSVar(context,stmt.getLValue());
+            CSVar csVar = getCSVar(context,stmt.getLValue());
             Context selectHeapContext = contextSelector.selectHeapContext(csMethod,heapModel.getObj(stmt));
             workList.addEntry(csVar,PointsToSetFactory.make(csManager.getCSObj(selectHeapContext,heapModel.getObj(stmt))));
             return null;
@@ -143,9 +207,13 @@ class Solver {
 
         @Override
         public Void visit(Copy stmt) {
-            CSVar csVar_left = csManager.getCSVar(context,stmt.getLValue());
-            CSVar csVar_right = csManager.getCSVar(context,stmt.getRValue());
-            addPFGEdge(csVar_right,csVar_left);
+            CSVar csVar_left = getCSVar(context,stmt.getLValue());
+            CSVar csVar_right = getCSVar(context,stmt.getRValue());
+            // the copies between equivalent variables need no edges
+            if (csVar_right != csVar_left)
+            {
+                addPFGEdge(csVar_right,csVar_left);
+            }
             return null;
         }
 
@@ -153,7 +221,7 @@ class Solver {
         public Void visit(StoreField stmt) {
             if (stmt.isStatic())
             {
-                CSVar csVar_src = csManager.getCSVar(context,stmt.getRValue());
+                CSVar csVar_src = getCSVar(context,stmt.getRValue());
                 StaticField staticField_tgt = csManager.getStaticField(stmt.getFieldAccess().getFieldRef().resolve());
                 addPFGEdge(csVar_src,staticField_tgt);
             }
@@ -164,7 +232,7 @@ class Solver {
         public Void visit(LoadField stmt) {
             if (stmt.isStatic())
             {
-                CSVar csVar_tgt = csManager.getCSVar(context,stmt.getLValue());
+                CSVar csVar_tgt = getCSVar(context,stmt.getLValue());
                 StaticField staticField_src = csManager.getStaticField(stmt.getFieldAccess().getFieldRef().resolve());
                 addPFGEdge(staticField_src,csVar_tgt);
             }
@@ -188,6 +256,23 @@ class Solver {
         }
     }
 
+    /**
+     * @return the context-sensitive variable for given context and
+     * the variable representing given variable.
+     */
+    private CSVar getCSVar(Context context, Var var) {
+        return csManager.getCSVar(context, varSubstitution == null ?
+                var : varSubstitution.getRep(var));
+    }
+
+    /**
+     * @return the variables represented by given context-sensitive variable.
+     */
+    private Set<Var> getVarsOf(CSVar csVar) {
+        return varSubstitution == null ?
+                Set.of(csVar.getVar()) : varSubstitution.getVarsOf(csVar.getVar());
+    }
+
     /**
      * Adds an edge "source -> target" to the PFG.
      */
@@ -216,37 +301,47 @@ class Solver {
             PointsToSet delta = propagate(n,pts);
             if (n instanceof CSVar csVar)
             {
-                for (CSObj csObj:delta)
+                for (Var var:getVarsOf(csVar))
                 {
-                    for (LoadField loadField:csVar.getVar().getLoadFields())
+                    for (CSObj csObj:delta)
                     {
-                        // x = y.f
-                        InstanceField instanceField_src = csManager.getInstanceField(csObj,loadField.getFieldAccess().getFieldRef().resolve());
-                        CSVar csVar_tgt = csManager.getCSVar(csVar.getContext(), loadField.getLValue());
-                        addPFGEdge(instanceField_src,csVar_tgt);
-                    }
-                    for (StoreField storeField:csVar.getVar().getStoreFields())
-                    {
-                        // x.f = y
-                        InstanceField instanceField_tgt = csManager.getInstanceField(csObj,storeField.getFieldAccess().getFieldRef().resolve());
-                        CSVar csVar_src = csManager.getCSVar(csVar.getContext(), storeField.getRValue());
-                        addPFGEdge(csVar_src,instanceField_tgt);
-                    }
-                    for (LoadArray loadArray:csVar.getVar().getLoadArrays())
-                    {
-                        ArrayIndex arrayIndex_src = csManager.getArrayIndex(csObj);
-                        CSVar csVar_tgt = csManager.getCSVar(csVar.getContext(), loadArray.getLValue());
-                        addPFGEdge(arrayIndex_src,csVar_tgt);
-                    }
-                    for (StoreArray storeArray:csVar.getVar().getStoreArrays())
-                    {
-                        ArrayIndex arrayIndex_tgt = csManager.getArrayIndex(csObj);
-                        CSVar csVar_src = csManager.getCSVar(csVar.getContext(), storeArray.getRValue());
-                        addPFGEdge(csVar_src,arrayIndex_tgt);
+                        for (LoadField loadField:var.getLoadFields())
+                        {
+                            // x = y.f
+                            InstanceField instanceField_src = csManager.getInstanceField(csObj,loadField.getFieldAccess().getFieldRef().resolve());
+                            CSVar csVar_tgt = getCSVar(csVar.getContext(), loadField.getLValue());
+                            addPFGEdge(instanceField_src,csVar_tgt);
+                        }
+                        for (StoreField storeField:var.getStoreFields())
+                        {
+                            // x.f = y
+                            InstanceField instanceField_tgt = csManager.getInstanceField(csObj,storeField.getFieldAccess().getFieldRef().resolve());
+                            CSVar csVar_src = getCSVar(csVar.getContext(), storeField.getRValue());
+                            addPFGEdge(csVar_src,instanceField_tgt);
+                        }
+                        for (LoadArray loadArray:var.getLoadArrays())
+                        {
+                            ArrayIndex arrayIndex_src = csManager.getArrayIndex(csObj);
+                            CSVar csVar_tgt = getCSVar(csVar.getContext(), loadArray.getLValue());
+                            addPFGEdge(arrayIndex_src,csVar_tgt);
+                        }
+                        for (StoreArray storeArray:var.getStoreArrays())
+                        {
+                            ArrayIndex arrayIndex_tgt = csManager.getArrayIndex(csObj);
+                            CSVar csVar_src = getCSVar(csVar.getContext(), storeArray.getRValue());
+                            addPFGEdge(csVar_src,arrayIndex_tgt);
+                        }
                     }
+                }
+                for (CSObj csObj:delta)
+                {
                     processCall(csVar,csObj);
                 }
             }
+            if (ptsStore != null)
+            {
+                internStablePointsToSets(delta.isEmpty() ? null : n);
+            }
         }
     }
 
@@ -260,7 +355,7 @@ class Solver {
         PointsToSet delta = PointsToSetFactory.make();
         for (CSObj obj:pointsToSet)
         {
-            if (!ptn.contains(obj))
+            if (!ptn.contains(obj) && isAccepted(pointer, obj))
             {
                 delta.addObject(obj);
             }
@@ -279,6 +374,15 @@ class Solver {
         return delta;
     }
 
+    /**
+     * @return true if the object can be propagated to the pointer
+     * under type filtering, otherwise false.
+     */
+    private boolean isAccepted(Pointer pointer, CSObj obj) {
+        return typeFilter == null ||
+                typeFilter.accepts(pointer.getType(), obj.getObject().getType());
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
@@ -287,18 +391,21 @@ class Solver {
      */
     private void processCall(CSVar recv, CSObj recvObj) {
         // TODO - finish me
-        for (Invoke invoke:recv.getVar().getInvokes())
+        for (Var var:getVarsOf(recv))
         {
-            JMethod method = resolveCallee(recvObj,invoke);
-            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
-            Context context = contextSelector.selectContext(csCallSite,recvObj,method); // 𝑐^𝑡 = Select(𝑐, 𝑙, 𝑐′:𝑜_𝑖)
-            CSVar c_t_m_this = csManager.getCSVar(context, method.getIR().getThis());
-            workList.addEntry(c_t_m_this, PointsToSetFactory.make(recvObj));
-            CSMethod csMethod = csManager.getCSMethod(context, method);
-            if (!callGraph.getCalleesOf(csCallSite).contains(csMethod))
+            for (Invoke invoke:var.getInvokes())
             {
-                callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), csCallSite, csMethod));
-                processInvoke(csCallSite, csMethod);
+                JMethod method = resolveCallee(recvObj,invoke);
+                CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
+                Context context = contextSelector.selectContext(csCallSite,recvObj,method); // 𝑐^𝑡 = Select(𝑐, 𝑙, 𝑐′:𝑜_𝑖)
+                CSVar c_t_m_this = getCSVar(context, method.getIR().getThis());
+                workList.addEntry(c_t_m_this, PointsToSetFactory.make(recvObj));
+                CSMethod csMethod = csManager.getCSMethod(context, method);
+                if (!callGraph.getCalleesOf(csCallSite).contains(csMethod))
+                {
+                    callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), csCallSite, csMethod));
+                    processInvoke(csCallSite, csMethod);
+                }
             }
         }
     }
@@ -307,16 +414,16 @@ class Solver {
         addReachable(csMethod);
         for (int i=0; i<csMethod.getMethod().getParamCount();i++)
         {
-            CSVar src = csManager.getCSVar(csCallSite.getContext(), csCallSite.getCallSite().getInvokeExp().getArg(i));
-            CSVar tgt = csManager.getCSVar(csMethod.getContext(), csMethod.getMethod().getIR().getParam(i));
+            CSVar src = getCSVar(csCallSite.getContext(), csCallSite.getCallSite().getInvokeExp().getArg(i));
+            CSVar tgt = getCSVar(csMethod.getContext(), csMethod.getMethod().getIR().getParam(i));
             addPFGEdge(src, tgt);
         }
         for (Var returnVar:csMethod.getMethod().getIR().getReturnVars())
         {
             if (csCallSite.getCallSite().getLValue()!=null)
             {
-                CSVar return_src = csManager.getCSVar(csMethod.getContext(), returnVar);
-                CSVar csVar_tgt = csManager.getCSVar(csCallSite.getContext(), csCallSite.getCallSite().getLValue());
+                CSVar return_src = getCSVar(csMethod.getContext(), returnVar);
+                CSVar csVar_tgt = getCSVar(csCallSite.getContext(), csCallSite.getCallSite().getLValue());
                 addPFGEdge(return_src, csVar_tgt);
             }
         }
@@ -335,6 +442,66 @@ class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    /**
+     * Gives each substituted variable its own context-sensitive variables,
+     * whose points-to sets are copied from the ones of its representative,
+     * so that the results contain all variables.
+     */
+    private void expandSubstitutedVars() {
+        varSubstitution.getSubstitutedVars().forEach((var, rep) ->
+                List.copyOf(csManager.getCSVarsOf(rep)).forEach(csRep ->
+                        csManager.getCSVar(csRep.getContext(), var)
+                                .getPointsToSet()
+                                .addAll(csRep.getPointsToSet())));
+        logger.info("Offline variable substitution: {}",
+                varSubstitution.getStatistics());
+    }
+
+    /**
+     * Records that the points-to set of given pointer (if not null) has
+     * changed, and interns the points-to sets which have not changed since
+     * the last interning, i.e., the sets that are likely to be stable.
+     * The interning happens when the number of processed work-list entries
+     * reaches {@link #nextInternPoint}, which doubles after each interning,
+     * so that the interning costs time linear in the number of pointers
+     * for each doubling of the work.
+     * The interned sets which change afterwards are copied on write.
+     */
+    private void internStablePointsToSets(Pointer changed) {
+        if (changed != null) {
+            changedPointers.add(changed);
+        }
+        if (++processedEntries < nextInternPoint) {
+            return;
+        }
+        nextInternPoint *= 2;
+        allPointers()
+                .filter(p -> !changedPointers.contains(p))
+                .forEach(p -> p.setPointsToSet(ptsStore.intern(p.getPointsToSet())));
+        changedPointers.clear();
+    }
+
+    /**
+     * Replaces the points-to sets of all pointers by hash-consed ones,
+     * so that the pointers with the same points-to sets share the objects.
+     */
+    private void hashConsPointsToSets() {
+        allPointers().forEach(p ->
+                p.setPointsToSet(ptsStore.intern(p.getPointsToSet())));
+        changedPointers = null;
+        logger.info("Hash-consed points-to sets: {} set(s) interned," +
+                        " {} canonical set(s) created",
+                ptsStore.getNumberOfInternedSets(),
+                ptsStore.getNumberOfCreatedSets());
+    }
+
+    private Stream<Pointer> allPointers() {
+        return Stream.<Collection<? extends Pointer>>of(csManager.getCSVars(),
+                        csManager.getStaticFields(), csManager.getInstanceFields(),
+                        csManager.getArrayIndexes())
+                .flatMap(Collection::stream);
+    }
+
     PointerAnalysisResult getResult() {
         if (result == null) {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
@@ -0,0 +1,184 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Offline variable substitution for pointer analysis, which finds
+ * pointer-equivalent variables by hash-based value numbering (HU).
+ * <p>
+ * Each variable is labeled by the sources of its points-to set. Except
+ * copies, each definition of a variable, e.g., x = new T, x = y.f and
+ * x = m(...), gives a fresh label to the variable, and so do parameters
+ * and this variables, which receive objects from call sites. Then the
+ * labels are propagated along copies x = y until the label sets are
+ * stable. Variables with equal label sets must have the same points-to
+ * sets in every context, thus they are represented by one variable,
+ * and the copies among them become trivial.
+ * <p>
+ * The substitution is intra-procedural, so that it runs on each method
+ * when the method becomes reachable for the first time.
+ */
+class VarSubstitution {
+
+    /**
+     * Methods that have been processed.
+     */
+    private final Set<JMethod> methods = Sets.newSet();
+
+    /**
+     * Map from each substituted variable to the variable representing it.
+     */
+    private final Map<Var, Var> reps = Maps.newMap();
+
+    /**
+     * Map from a representative variable to the variables substituted by it.
+     */
+    private final MultiMap<Var, Var> substitutedVars = Maps.newMultiMap();
+
+    private int nVars;
+
+    private int nCopies;
+
+    private int nRemovedCopies;
+
+    /**
+     * Finds pointer-equivalent variables in the given method,
+     * if the method has not been processed.
+     */
+    void process(JMethod method) {
+        if (!methods.add(method)) {
+            return;
+        }
+        IR ir = method.getIR();
+        Map<Var, BitSet> labels = Maps.newMap();
+        // variables having their own labels, which are preferred
+        // as representatives, as their objects are not from copies
+        Set<Var> sources = Sets.newHybridOrderedSet();
+        if (ir.getThis() != null) {
+            sources.add(ir.getThis());
+        }
+        sources.addAll(ir.getParams());
+        int nLabels = 0;
+        for (Var var : sources) {
+            labels.computeIfAbsent(var, unused -> new BitSet()).set(nLabels++);
+        }
+        MultiMap<Var, Var> copies = Maps.newMultiMap();
+        List<Copy> copyStmts = new ArrayList<>();
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Copy copy) {
+                copies.put(copy.getRValue(), copy.getLValue());
+                copyStmts.add(copy);
+            } else if (stmt.getDef().orElse(null) instanceof Var var) {
+                sources.add(var);
+                labels.computeIfAbsent(var, unused -> new BitSet()).set(nLabels++);
+            }
+        }
+        // propagate labels along copies
+        Queue<Var> workList = new ArrayDeque<>(labels.keySet());
+        while (!workList.isEmpty()) {
+            Var from = workList.poll();
+            for (Var to : copies.get(from)) {
+                BitSet diff = (BitSet) labels.get(from).clone();
+                BitSet toLabels = labels.computeIfAbsent(to, unused -> new BitSet());
+                diff.andNot(toLabels);
+                if (!diff.isEmpty()) {
+                    toLabels.or(diff);
+                    workList.add(to);
+                }
+            }
+        }
+        // hash label sets to find equivalent variables
+        Map<BitSet, Var> valueNumbers = Maps.newMap();
+        List<Var> vars = new ArrayList<>(sources);
+        ir.getVars().stream()
+                .filter(var -> !sources.contains(var))
+                .forEach(vars::add);
+        for (Var var : vars) {
+            BitSet varLabels = labels.get(var);
+            if (varLabels != null) {
+                Var rep = valueNumbers.putIfAbsent(varLabels, var);
+                if (rep != null) {
+                    reps.put(var, rep);
+                    substitutedVars.put(rep, var);
+                }
+            }
+        }
+        nVars += ir.getVars().size();
+        nCopies += copyStmts.size();
+        nRemovedCopies += (int) copyStmts.stream()
+                .filter(copy -> getRep(copy.getLValue()).equals(getRep(copy.getRValue())))
+                .count();
+    }
+
+    /**
+     * @return the variable representing the given variable.
+     */
+    Var getRep(Var var) {
+        return reps.getOrDefault(var, var);
+    }
+
+    /**
+     * @return the variables represented by given representative variable,
+     * including itself.
+     */
+    Set<Var> getVarsOf(Var rep) {
+        Set<Var> substituted = substitutedVars.get(rep);
+        if (substituted.isEmpty()) {
+            return Set.of(rep);
+        }
+        Set<Var> vars = Sets.newHybridSet(substituted);
+        vars.add(rep);
+        return vars;
+    }
+
+    /**
+     * @return map from each substituted variable to its representative.
+     */
+    Map<Var, Var> getSubstitutedVars() {
+        return Collections.unmodifiableMap(reps);
+    }
+
+    String getStatistics() {
+        return String.format("substituted %d of %d variables," +
+                        " removed %d of %d copies in %d methods",
+                reps.size(), nVars, nRemovedCopies, nCopies, methods.size());
+    }
+}
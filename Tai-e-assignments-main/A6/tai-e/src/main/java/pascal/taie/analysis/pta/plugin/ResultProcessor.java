@@ -41,10 +41,13 @@ import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -71,7 +74,8 @@ public class ResultProcessor {
 
     public static void process(AnalysisOptions options,
                                PointerAnalysisResult result) {
-        printStatistics(result);
+        printStatistics(result,
+                options.getBooleanOrDefault("hash-cons-pts", false));
         String action = options.getString("action");
         if (action == null) {
             return;
@@ -83,7 +87,13 @@ public class ResultProcessor {
         }
     }
 
-    private static void printStatistics(PointerAnalysisResult result) {
+    /**
+     * @param hashConsed whether the equal points-to sets are hash-consed,
+     *                   i.e., shared, by the solver. Only in this case,
+     *                   the number of distinct points-to sets is printed.
+     */
+    private static void printStatistics(PointerAnalysisResult result,
+                                        boolean hashConsed) {
         int varInsens = result.getVars().size();
         int varSens = result.getCSVars().size();
         int vptSizeInsens = sum(result.getVars(), v -> result.getPointsToSet(v).size());
@@ -96,6 +106,13 @@ public class ResultProcessor {
         int reachableSens = result.getCSCallGraph().getNumberOfMethods();
         int callEdgeInsens = (int) result.getCallGraph().edges().count();
         int callEdgeSens = (int) result.getCSCallGraph().edges().count();
+        List<PointsToSet> ptsSens = Streams.<Pointer>concat(
+                        result.getCSVars().stream(),
+                        result.getStaticFields().stream(),
+                        result.getInstanceFields().stream(),
+                        result.getArrayIndexes().stream())
+                .map(Pointer::getPointsToSet)
+                .toList();
         System.out.println("-------------- Pointer analysis statistics: --------------");
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#var pointers:",
                 format(varInsens), format(varSens));
@@ -111,9 +128,29 @@ public class ResultProcessor {
                 format(reachableInsens), format(reachableSens));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#call graph edges:",
                 format(callEdgeInsens), format(callEdgeSens));
+        if (hashConsed) {
+            int distinctPts = countShared(ptsSens);
+            System.out.printf("%-30s%s (sens) / %s (distinct), dedup ratio %.2f%n",
+                    "#points-to sets:", format(ptsSens.size()), format(distinctPts),
+                    distinctPts == 0 ? 1.0 : (double) ptsSens.size() / distinctPts);
+        } else {
+            System.out.printf("%-30s%s (sens)%n", "#points-to sets:",
+                    format(ptsSens.size()));
+        }
         System.out.println("----------------------------------------");
     }
 
+    /**
+     * @return the number of distinct points-to sets. As the equal
+     * points-to sets are shared after hash-consing, this counts the
+     * distinct objects, without comparing the contents of the sets.
+     */
+    private static int countShared(List<PointsToSet> ptsList) {
+        Set<PointsToSet> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(ptsList);
+        return distinct.size();
+    }
+
     private static String format(int i) {
         return formatter.format(i);
     }
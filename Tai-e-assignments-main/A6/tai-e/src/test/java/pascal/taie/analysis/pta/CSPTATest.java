@@ -23,7 +23,23 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.language.type.TypeSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CSPTATest {
 
@@ -93,4 +109,87 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testVarSubstitution() {
+        // substituting variables must not change the points-to sets
+        Tests.testCSPTA(DIR, "Assign", "var-substitution:true");
+        Tests.testCSPTA(DIR, "Call", "var-substitution:true");
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj;var-substitution:true");
+    }
+
+    @Test
+    public void testHashConsPointsToSets() {
+        // sharing equal points-to sets must not change them
+        Tests.testCSPTA(DIR, "StoreLoad", "hash-cons-pts:true");
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj;hash-cons-pts:true");
+    }
+
+    @Test
+    public void testTypeMerging() throws IOException {
+        // the objects of D allocated at different sites are merged
+        Map<String, String> pts = dump("OneType",
+                "heap-model:type-merging;merged-types:D");
+        String x = pts.get("[]:<A: void m()>/x");
+        assertTrue(x, x.contains("MergedObj{"));
+        assertEquals(x, pts.get("[]:<B: void m()>/y"));
+        // D holds no objects, thus the objects of its sites beyond
+        // the limit are merged
+        pts = dump("OneType", "heap-model:type-merging;max-objs-per-type:1");
+        assertTrue(pts.values().stream().anyMatch(p -> p.contains("MergedObj{")));
+    }
+
+    @Test
+    public void testTypeFilter() throws IOException {
+        // Array stores an object of A into an array of B, which is
+        // pruned by type filtering
+        dump("Array", "");
+        assertTrue(countIllTyped(World.get().getResult(CSPTA.ID)) > 0);
+        dump("Array", "type-filter:true");
+        assertEquals(0, countIllTyped(World.get().getResult(CSPTA.ID)));
+    }
+
+    /**
+     * @return the number of objects pointed to by the pointers in given
+     * result, whose types are not subtypes of the declared types of
+     * the pointers.
+     */
+    private static long countIllTyped(PointerAnalysisResult result) {
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        return Stream.<Collection<? extends Pointer>>of(result.getCSVars(),
+                        result.getStaticFields(), result.getInstanceFields(),
+                        result.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .mapToLong(p -> p.getPointsToSet()
+                        .objects()
+                        .filter(o -> !typeSystem.isSubtype(
+                                p.getType(), o.getObject().getType()))
+                        .count())
+                .sum();
+    }
+
+    /**
+     * Dumps the points-to sets of given test case.
+     *
+     * @return the map from pointers to their points-to sets.
+     */
+    private static Map<String, String> dump(String main, String opts)
+            throws IOException {
+        Path file = Files.createTempFile(main, ".txt");
+        try {
+            Main.main(new String[]{
+                    "-pp", "-cp", "src/test/resources/pta/" + DIR, "-m", main,
+                    "-a", "cspta=implicit-entries:false;only-app:true;" +
+                    "action:dump;file:" + file + ";" + opts});
+            Map<String, String> pts = new LinkedHashMap<>();
+            Files.readAllLines(file)
+                    .stream()
+                    .filter(line -> line.contains(" -> "))
+                    .map(line -> line.split(" -> "))
+                    .forEach(s -> pts.put(s[0], s[1]));
+            return pts;
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PointsToSetStoreTest {
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private CSObj obj(String desc) {
+        return csManager.getCSObj(ListContext.make(),
+                new MockObj(desc, desc, null));
+    }
+
+    private static PointsToSet pts(CSObj... objs) {
+        PointsToSet pts = PointsToSetFactory.make();
+        for (CSObj obj : objs) {
+            pts.addObject(obj);
+        }
+        return pts;
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        CSObj o1 = obj("o1"), o2 = obj("o2"), o3 = obj("o3");
+        PointsToSetStore store = new PointsToSetStore();
+        PointsToSet a = store.intern(pts(o1, o2));
+        PointsToSet b = store.intern(pts(o2, o1));
+        assertEquals(a.getObjects(), b.getObjects());
+        // adding an existing object does not copy the shared set
+        assertFalse(a.addObject(o1));
+        assertTrue(((SharedPointsToSet) a).isShared());
+        // adding a new object copies the shared set, leaving the other intact
+        assertTrue(a.addObject(o3));
+        assertFalse(((SharedPointsToSet) a).isShared());
+        assertEquals(Set.of(o1, o2, o3), a.getObjects());
+        assertEquals(Set.of(o1, o2), b.getObjects());
+        // interning a still shared set returns the set itself
+        assertSame(b, store.intern(b));
+        assertEquals(pts(o1, o2, o3).getObjects(),
+                store.intern(a).getObjects());
+    }
+
+    @Test
+    public void testStatistics() {
+        CSObj o1 = obj("o1"), o2 = obj("o2");
+        PointsToSetStore store = new PointsToSetStore();
+        PointsToSet a = store.intern(pts(o1, o2));
+        PointsToSet b = store.intern(pts(o2, o1));
+        PointsToSet c = store.intern(pts(o1));
+        PointsToSet d = store.intern(pts());
+        store.intern(a);
+        assertEquals(4, store.getNumberOfInternedSets());
+        assertEquals(3, store.getNumberOfCreatedSets());
+        assertEquals(3, store.getNumberOfCanonicalSets());
+        // the copied set is interned into the existing equal canonical set
+        c.addObject(o2);
+        assertEquals(a.getObjects(), store.intern(c).getObjects());
+        assertEquals(5, store.getNumberOfInternedSets());
+        assertEquals(3, store.getNumberOfCreatedSets());
+        assertTrue(b.contains(o1) && d.isEmpty());
+    }
+}
@@ -107,4 +107,16 @@ public interface CallGraph<CallSite, Method> extends Graph<Method>, StmtResult<S
      * @return true if this call graph contains the given method, otherwise false.
      */
     boolean contains(Method method);
+
+    /**
+     * Converts this call graph to an immutable and compact representation.
+     * This method should be called after this call graph has been fully
+     * built, and the returned call graph should be used afterwards.
+     *
+     * @return an immutable call graph which contains the same methods
+     * and edges as this call graph.
+     */
+    default CallGraph<CallSite, Method> freeze() {
+        return new CompactCallGraph<>(this);
+    }
 }
@@ -59,7 +59,7 @@ public class CallGraphBuilder extends ProgramAnalysis {
             default -> throw new ConfigException(
                     "Unknown call graph building algorithm: " + algorithm);
         };
-        CallGraph<Invoke, JMethod> callGraph = builder.build();
+        CallGraph<Invoke, JMethod> callGraph = builder.build().freeze();
         takeAction(callGraph);
         return callGraph;
     }
@@ -0,0 +1,381 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable call graph in compressed sparse row (CSR) form.
+ * Methods and call sites are numbered by consecutive ints, and the
+ * call sites of each method, the out edges of each call site, and the
+ * in edges of each method are stored as contiguous ranges of plain
+ * arrays, so that no hash multimap is kept after construction and
+ * iterating over edges does not allocate.
+ * <p>
+ * Instances are obtained via {@link CallGraph#freeze()}.
+ *
+ * @param <CallSite> type of call sites
+ * @param <Method>   type of methods
+ */
+public class CompactCallGraph<CallSite, Method> implements CallGraph<CallSite, Method> {
+
+    private final Method[] entries;
+
+    /**
+     * Method id -> method.
+     */
+    private final Method[] methods;
+
+    private final Map<Method, Integer> methodIds;
+
+    /**
+     * Call site id -> call site. The call sites in the same method
+     * have consecutive ids.
+     */
+    private final CallSite[] callSites;
+
+    private final Map<CallSite, Integer> callSiteIds;
+
+    /**
+     * Call site id -> id of its container method.
+     */
+    private final int[] containers;
+
+    /**
+     * The call sites of method i are in [callSiteStarts[i], callSiteStarts[i + 1]).
+     */
+    private final int[] callSiteStarts;
+
+    /**
+     * All call edges, ordered by the ids of their call sites.
+     */
+    private final Edge<CallSite, Method>[] outEdges;
+
+    /**
+     * The out edges of call site i are in [outEdgeStarts[i], outEdgeStarts[i + 1]).
+     */
+    private final int[] outEdgeStarts;
+
+    /**
+     * All call edges, ordered by the ids of their callees.
+     */
+    private final Edge<CallSite, Method>[] inEdges;
+
+    /**
+     * The in edges of method i are in [inEdgeStarts[i], inEdgeStarts[i + 1]).
+     */
+    private final int[] inEdgeStarts;
+
+    @SuppressWarnings("unchecked")
+    CompactCallGraph(CallGraph<CallSite, Method> callGraph) {
+        entries = (Method[]) callGraph.entryMethods().toArray();
+        methods = (Method[]) callGraph.reachableMethods().toArray();
+        methodIds = Maps.newMap(methods.length);
+        for (int i = 0; i < methods.length; ++i) {
+            methodIds.put(methods[i], i);
+        }
+        // number call sites method by method
+        callSiteStarts = new int[methods.length + 1];
+        List<CallSite> callSiteList = new ArrayList<>();
+        for (int i = 0; i < methods.length; ++i) {
+            callSiteStarts[i] = callSiteList.size();
+            callSiteList.addAll(callGraph.getCallSitesIn(methods[i]));
+        }
+        callSiteStarts[methods.length] = callSiteList.size();
+        callSites = (CallSite[]) callSiteList.toArray();
+        callSiteIds = Maps.newMap(callSites.length);
+        containers = new int[callSites.length];
+        for (int i = 0; i < methods.length; ++i) {
+            for (int j = callSiteStarts[i]; j < callSiteStarts[i + 1]; ++j) {
+                callSiteIds.put(callSites[j], j);
+                containers[j] = i;
+            }
+        }
+        // out edges, grouped by call sites
+        outEdgeStarts = new int[callSites.length + 1];
+        List<Edge<CallSite, Method>> edgeList = new ArrayList<>();
+        for (int i = 0; i < callSites.length; ++i) {
+            outEdgeStarts[i] = edgeList.size();
+            callGraph.edgesOutOf(callSites[i]).forEach(edgeList::add);
+        }
+        outEdgeStarts[callSites.length] = edgeList.size();
+        outEdges = edgeList.toArray(new Edge[0]);
+        // in edges, grouped by callees (counting sort on callee ids)
+        inEdgeStarts = new int[methods.length + 1];
+        for (Edge<CallSite, Method> edge : outEdges) {
+            ++inEdgeStarts[getMethodId(edge.getCallee()) + 1];
+        }
+        for (int i = 0; i < methods.length; ++i) {
+            inEdgeStarts[i + 1] += inEdgeStarts[i];
+        }
+        inEdges = new Edge[outEdges.length];
+        int[] next = Arrays.copyOf(inEdgeStarts, methods.length);
+        for (Edge<CallSite, Method> edge : outEdges) {
+            inEdges[next[getMethodId(edge.getCallee())]++] = edge;
+        }
+    }
+
+    private int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            throw new IllegalArgumentException(
+                    "Callee " + method + " is not a reachable method");
+        }
+        return id;
+    }
+
+    /**
+     * Applies the action to each call edge in this call graph.
+     * Different from {@link #edges()}, this method does not allocate.
+     */
+    public void forEachEdge(Consumer<Edge<CallSite, Method>> action) {
+        for (Edge<CallSite, Method> edge : outEdges) {
+            action.accept(edge);
+        }
+    }
+
+    @Override
+    public CallGraph<CallSite, Method> freeze() {
+        return this;
+    }
+
+    @Override
+    public Set<CallSite> getCallersOf(Method callee) {
+        Integer id = methodIds.get(callee);
+        if (id == null) {
+            return Set.of();
+        }
+        return new SliceSet<>(inEdgeStarts[id], inEdgeStarts[id + 1],
+                i -> inEdges[i].getCallSite());
+    }
+
+    @Override
+    public Set<Method> getCalleesOf(CallSite callSite) {
+        Integer id = callSiteIds.get(callSite);
+        if (id == null) {
+            return Set.of();
+        }
+        return new SliceSet<>(outEdgeStarts[id], outEdgeStarts[id + 1],
+                i -> outEdges[i].getCallee());
+    }
+
+    @Override
+    public Set<Method> getCalleesOfM(Method caller) {
+        return callSitesIn(caller)
+                .flatMap(cs -> getCalleesOf(cs).stream())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Method getContainerOf(CallSite callSite) {
+        Integer id = callSiteIds.get(callSite);
+        return id == null ? null : methods[containers[id]];
+    }
+
+    @Override
+    public Set<CallSite> getCallSitesIn(Method method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            return Set.of();
+        }
+        return new SliceSet<>(callSiteStarts[id], callSiteStarts[id + 1],
+                i -> callSites[i]);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edgesOutOf(CallSite callSite) {
+        Integer id = callSiteIds.get(callSite);
+        return id == null ? Stream.of() :
+                Arrays.stream(outEdges, outEdgeStarts[id], outEdgeStarts[id + 1]);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edgesInTo(Method method) {
+        Integer id = methodIds.get(method);
+        return id == null ? Stream.of() :
+                Arrays.stream(inEdges, inEdgeStarts[id], inEdgeStarts[id + 1]);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edges() {
+        return Arrays.stream(outEdges);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return outEdges.length;
+    }
+
+    @Override
+    public Stream<Method> entryMethods() {
+        return Arrays.stream(entries);
+    }
+
+    @Override
+    public Stream<Method> reachableMethods() {
+        return Arrays.stream(methods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(Method method) {
+        return methodIds.containsKey(method);
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(Method node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(Method source, Method target) {
+        Integer id = methodIds.get(source);
+        if (id == null) {
+            return false;
+        }
+        for (int i = outEdgeStarts[callSiteStarts[id]];
+             i < outEdgeStarts[callSiteStarts[id + 1]]; ++i) {
+            if (outEdges[i].getCallee().equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<MethodEdge<CallSite, Method>> getInEdgesOf(Method method) {
+        return edgesInTo(method)
+                .map(e -> new MethodEdge<>(getContainerOf(e.getCallSite()),
+                        method, e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<MethodEdge<CallSite, Method>> getOutEdgesOf(Method method) {
+        return callSitesIn(method)
+                .flatMap(this::edgesOutOf)
+                .map(e -> new MethodEdge<>(method, e.getCallee(), e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<Method> getPredsOf(Method node) {
+        return edgesInTo(node)
+                .map(e -> getContainerOf(e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<Method> getSuccsOf(Method node) {
+        return getCalleesOfM(node);
+    }
+
+    @Override
+    public Set<Method> getNodes() {
+        return Collections.unmodifiableSet(methodIds.keySet());
+    }
+
+    // Implementation for StmtResult interface.
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public Set<Method> getResult(Stmt stmt) {
+        Integer id = callSiteIds.get(stmt);
+        if (id == null) {
+            return Set.of();
+        }
+        return new SliceSet<>(outEdgeStarts[id], outEdgeStarts[id + 1],
+                i -> outEdges[i].getCallee());
+    }
+
+    /**
+     * Unmodifiable set view of a range [from, to) of an array.
+     * The elements in the range are distinct.
+     */
+    private static class SliceSet<E> extends AbstractSet<E> {
+
+        private final int from;
+
+        private final int to;
+
+        private final IntFunction<E> getter;
+
+        private SliceSet(int from, int to, IntFunction<E> getter) {
+            this.from = from;
+            this.to = to;
+            this.getter = getter;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int next = from;
+
+                @Override
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                @Override
+                public E next() {
+                    if (next >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return getter.apply(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -337,7 +337,7 @@ class Solver {
 
     PointerAnalysisResult getResult() {
         if (result == null) {
-            result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result = new PointerAnalysisResultImpl(csManager, callGraph.freeze());
         }
         return result;
     }
@@ -0,0 +1,111 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Test;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactCallGraphTest {
+
+    /**
+     * Call graph whose call sites are named "method/n".
+     */
+    private static class StringCallGraph extends AbstractCallGraph<String, String> {
+
+        void addMethod(String method, String... callSites) {
+            reachableMethods.add(method);
+            for (String callSite : callSites) {
+                callSiteToContainer.put(callSite, method);
+                callSitesIn.put(method, callSite);
+            }
+        }
+
+        void addEdge(String callSite, String callee) {
+            Edge<String, String> edge = new Edge<>(CallKind.STATIC, callSite, callee);
+            callSiteToEdges.put(callSite, edge);
+            calleeToEdges.put(callee, edge);
+        }
+
+        @Override
+        public boolean isRelevant(Stmt stmt) {
+            return false;
+        }
+
+        @Override
+        public Set<String> getResult(Stmt stmt) {
+            return Set.of();
+        }
+    }
+
+    @Test
+    public void testFreeze() {
+        StringCallGraph callGraph = new StringCallGraph();
+        callGraph.entryMethods.add("main");
+        callGraph.addMethod("main", "main/0", "main/1");
+        callGraph.addMethod("foo", "foo/0");
+        callGraph.addMethod("bar");
+        callGraph.addEdge("main/0", "foo");
+        callGraph.addEdge("main/0", "bar");
+        callGraph.addEdge("main/1", "bar");
+        callGraph.addEdge("foo/0", "foo");
+        CallGraph<String, String> frozen = callGraph.freeze();
+        assertTrue(frozen instanceof CompactCallGraph);
+        assertSame(frozen, frozen.freeze());
+        // the frozen call graph answers the queries as the original one
+        assertEquals(callGraph.getNumberOfMethods(), frozen.getNumberOfMethods());
+        assertEquals(callGraph.getNumberOfEdges(), frozen.getNumberOfEdges());
+        assertEquals(Set.of("main"), frozen.entryMethods().collect(Collectors.toSet()));
+        for (String method : List.of("main", "foo", "bar")) {
+            assertTrue(frozen.contains(method));
+            assertEquals(callGraph.getCallSitesIn(method), frozen.getCallSitesIn(method));
+            assertEquals(Set.copyOf(callGraph.getCallersOf(method)),
+                    frozen.getCallersOf(method));
+            assertEquals(callGraph.getCalleesOfM(method), frozen.getCalleesOfM(method));
+            assertEquals(callGraph.getPredsOf(method), frozen.getPredsOf(method));
+            assertEquals(callGraph.getInEdgesOf(method), frozen.getInEdgesOf(method));
+            assertEquals(callGraph.getOutEdgesOf(method), frozen.getOutEdgesOf(method));
+        }
+        for (String callSite : List.of("main/0", "main/1", "foo/0")) {
+            assertEquals(callGraph.getContainerOf(callSite), frozen.getContainerOf(callSite));
+            assertEquals(Set.copyOf(callGraph.getCalleesOf(callSite)),
+                    frozen.getCalleesOf(callSite));
+        }
+        assertEquals(Set.of("foo", "bar"), frozen.getCalleesOf("main/0"));
+        assertEquals(Set.of("main/0", "main/1"), frozen.getCallersOf("bar"));
+        assertTrue(frozen.hasEdge("foo", "foo"));
+        assertFalse(frozen.hasEdge("bar", "main"));
+        // unknown methods and call sites have no edges
+        assertFalse(frozen.contains("baz"));
+        assertTrue(frozen.getCalleesOf("baz/0").isEmpty());
+        assertTrue(frozen.getCallersOf("baz").isEmpty());
+    }
+}
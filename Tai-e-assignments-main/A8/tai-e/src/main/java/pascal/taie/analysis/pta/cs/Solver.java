@@ -48,6 +48,7 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.analysis.pta.pts.PointsToSetStore;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
@@ -55,11 +56,22 @@ import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * Number of processed work-list entries at which the stable points-to
+     * sets are interned for the first time (when hash-consing is enabled).
+     */
+    private static final long INITIAL_INTERN_POINT = 1024;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
@@ -76,6 +88,24 @@ public class Solver {
 
     private TaintAnalysiss taintAnalysis;
 
+    /**
+     * Store of hash-consed points-to sets, or null if hash-consing
+     * is disabled.
+     */
+    private PointsToSetStore ptsStore;
+
+    /**
+     * Pointers whose points-to sets have changed since the last time
+     * the stable points-to sets were interned.
+     */
+    private Set<Pointer> changedPointers;
+
+    /**
+     * Number of work-list entries processed so far, and the number at
+     * which the stable points-to sets are interned next time.
+     */
+    private long processedEntries, nextInternPoint;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
@@ -101,6 +131,10 @@ public class Solver {
         initialize();
         analyze();
         taintAnalysis.onFinish();
+        if (ptsStore != null) {
+            // points-to sets do not change after solving
+            hashConsPointsToSets();
+        }
     }
 
     private void initialize() {
@@ -109,12 +143,21 @@ public class Solver {
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
         taintAnalysis = new TaintAnalysiss(this);
-        // process program entry, i.e., main method
+        if (options.getBooleanOrDefault("hash-cons-pts", false)) {
+            ptsStore = new PointsToSetStore();
+            changedPointers = Sets.newSet();
+            nextInternPoint = INITIAL_INTERN_POINT;
+        }
+        // process program entry, i.e., main method, or the entry methods
+        // selected by demand-driven taint analysis
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
-        CSMethod csMethod = csManager.getCSMethod(defContext, main);
-        callGraph.addEntryMethod(csMethod);
-        addReachable(csMethod);
+        for (JMethod entry : taintAnalysis.getEntryMethods(main)) {
+            CSMethod csMethod = csManager.getCSMethod(defContext, entry);
+            callGraph.addEntryMethod(csMethod);
+            addReachable(csMethod);
+            taintAnalysis.onNewEntryMethod(csMethod);
+        }
     }
 
     /**
@@ -216,6 +259,7 @@ public class Solver {
             {
                 workList.addEntry(target, source.getPointsToSet());
             }
+            taintAnalysis.onNewPFGEdge(source, target);
         }
     }
 
@@ -262,6 +306,11 @@ public class Solver {
                     }
                     processCall(csVar,csObj);
                 }
+                taintAnalysis.onNewPointsToSet(csVar, delta);
+            }
+            if (ptsStore != null)
+            {
+                internStablePointsToSets(delta.isEmpty() ? null : n);
             }
         }
     }
@@ -336,6 +385,47 @@ public class Solver {
                 addPFGEdge(return_src, csVar_tgt);
             }
         }
+        taintAnalysis.onNewCallEdge(csCallSite, csMethod);
+    }
+
+    /**
+     * @return successors of given pointer in the pointer flow graph.
+     */
+    public Set<Pointer> getPFGSuccsOf(Pointer pointer) {
+        return pointerFlowGraph.getSuccsOf(pointer);
+    }
+
+    /**
+     * Adds a call edge from given call site to the callee resolved on
+     * a receiver object which is not in the points-to set of the receiver
+     * variable, and solves the points-to sets affected by the new edge.
+     * The receiver object is only used to select the context of the callee,
+     * and is not added to the points-to set of this variable of the callee.
+     * This method is used by plugins, e.g., taint analysis in lane mode.
+     *
+     * @return the context-sensitive callee.
+     */
+    public CSMethod addCallEdge(CSCallSite csCallSite, CSObj recvObj,
+                                JMethod callee) {
+        Invoke callSite = csCallSite.getCallSite();
+        Context context = contextSelector.selectContext(csCallSite, recvObj, callee);
+        CSMethod csCallee = csManager.getCSMethod(context, callee);
+        if (!callGraph.getCalleesOf(csCallSite).contains(csCallee)) {
+            callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(callSite),
+                    csCallSite, csCallee));
+            processInvoke(csCallSite, csCallee);
+            analyze();
+        }
+        return csCallee;
+    }
+
+    /**
+     * Adds an object to the points-to set of given pointer.
+     * This method is used by plugins, e.g., taint analysis.
+     */
+    public void addPointsTo(Pointer pointer, Context heapContext, Obj obj) {
+        workList.addEntry(pointer,
+                PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
     }
 
     /**
@@ -351,6 +441,51 @@ public class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    /**
+     * Records that the points-to set of given pointer (if not null) has
+     * changed, and interns the points-to sets which have not changed since
+     * the last interning, i.e., the sets that are likely to be stable.
+     * The interning happens when the number of processed work-list entries
+     * reaches {@link #nextInternPoint}, which doubles after each interning,
+     * so that the interning costs time linear in the number of pointers
+     * for each doubling of the work.
+     * The interned sets which change afterwards are copied on write.
+     */
+    private void internStablePointsToSets(Pointer changed) {
+        if (changed != null) {
+            changedPointers.add(changed);
+        }
+        if (++processedEntries < nextInternPoint) {
+            return;
+        }
+        nextInternPoint *= 2;
+        allPointers()
+                .filter(p -> !changedPointers.contains(p))
+                .forEach(p -> p.setPointsToSet(ptsStore.intern(p.getPointsToSet())));
+        changedPointers.clear();
+    }
+
+    /**
+     * Replaces the points-to sets of all pointers by hash-consed ones,
+     * so that the pointers with the same points-to sets share the objects.
+     */
+    private void hashConsPointsToSets() {
+        allPointers().forEach(p ->
+                p.setPointsToSet(ptsStore.intern(p.getPointsToSet())));
+        changedPointers = null;
+        logger.info("Hash-consed points-to sets: {} set(s) interned," +
+                        " {} canonical set(s) created",
+                ptsStore.getNumberOfInternedSets(),
+                ptsStore.getNumberOfCreatedSets());
+    }
+
+    private Stream<Pointer> allPointers() {
+        return Stream.<Collection<? extends Pointer>>of(csManager.getCSVars(),
+                        csManager.getStaticFields(), csManager.getInstanceFields(),
+                        csManager.getArrayIndexes())
+                .flatMap(Collection::stream);
+    }
+
     public PointerAnalysisResult getResult() {
         if (result == null) {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
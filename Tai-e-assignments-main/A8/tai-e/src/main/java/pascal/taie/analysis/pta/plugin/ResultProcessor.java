@@ -26,6 +26,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
@@ -42,7 +43,9 @@ import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,7 +77,8 @@ public class ResultProcessor {
 
     public static void process(AnalysisOptions options,
                                PointerAnalysisResult result) {
-        printStatistics(result);
+        printStatistics(result,
+                options.getBooleanOrDefault("hash-cons-pts", false));
         String action = options.getString("action");
         if (action == null) {
             return;
@@ -97,7 +101,13 @@ public class ResultProcessor {
         }
     }
 
-    private static void printStatistics(PointerAnalysisResult result) {
+    /**
+     * @param hashConsed whether the equal points-to sets are hash-consed,
+     *                   i.e., shared, by the solver. Only in this case,
+     *                   the number of distinct points-to sets is printed.
+     */
+    private static void printStatistics(PointerAnalysisResult result,
+                                        boolean hashConsed) {
         int varInsens = result.getVars().size();
         int varSens = result.getCSVars().size();
         int vptSizeInsens = sum(result.getVars(), v -> result.getPointsToSet(v).size());
@@ -110,6 +120,13 @@ public class ResultProcessor {
         int reachableSens = result.getCSCallGraph().getNumberOfMethods();
         int callEdgeInsens = (int) result.getCallGraph().edges().count();
         int callEdgeSens = (int) result.getCSCallGraph().edges().count();
+        List<PointsToSet> ptsSens = Streams.<Pointer>concat(
+                        result.getCSVars().stream(),
+                        result.getStaticFields().stream(),
+                        result.getInstanceFields().stream(),
+                        result.getArrayIndexes().stream())
+                .map(Pointer::getPointsToSet)
+                .toList();
         System.out.println("-------------- Pointer analysis statistics: --------------");
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#var pointers:",
                 format(varInsens), format(varSens));
@@ -125,9 +142,29 @@ public class ResultProcessor {
                 format(reachableInsens), format(reachableSens));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#call graph edges:",
                 format(callEdgeInsens), format(callEdgeSens));
+        if (hashConsed) {
+            int distinctPts = countShared(ptsSens);
+            System.out.printf("%-30s%s (sens) / %s (distinct), dedup ratio %.2f%n",
+                    "#points-to sets:", format(ptsSens.size()), format(distinctPts),
+                    distinctPts == 0 ? 1.0 : (double) ptsSens.size() / distinctPts);
+        } else {
+            System.out.printf("%-30s%s (sens)%n", "#points-to sets:",
+                    format(ptsSens.size()));
+        }
         System.out.println("----------------------------------------");
     }
 
+    /**
+     * @return the number of distinct points-to sets. As the equal
+     * points-to sets are shared after hash-consing, this counts the
+     * distinct objects, without comparing the contents of the sets.
+     */
+    private static int countShared(List<PointsToSet> ptsList) {
+        Set<PointsToSet> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(ptsList);
+        return distinct.size();
+    }
+
     private static String format(int i) {
         return formatter.format(i);
     }
@@ -224,19 +261,28 @@ public class ResultProcessor {
 
     private static void dumpTaintFlows(PrintStream out, PointerAnalysisResult result) {
         Set<TaintFlow> taintFlows = getTaintFlows(result);
+        Map<TaintFlow, List<Pointer>> witnessPaths =
+                result.getResult(TaintAnalysiss.WITNESS_PATHS, Map.of());
         out.printf("Detected %d taint flow(s):%n", taintFlows.size());
-        taintFlows.forEach(out::println);
+        taintFlows.forEach(taintFlow -> {
+            out.println(taintFlow);
+            // witness paths are indented, so that they are not read
+            // as taint flows by readTaintFlows()
+            witnessPaths.getOrDefault(taintFlow, List.of())
+                    .forEach(pointer -> out.println("    " + pointer));
+        });
         out.println();
     }
 
     /**
-     * @return taint analysis result.
+     * @return taint analysis result, i.e., the taint flows of all taint configs.
      */
     private static Set<TaintFlow> getTaintFlows(PointerAnalysisResult result) {
-        for (String key : result.getKeys()) {
-            if (key.contains("Taint")) { // adapt different taint analyses
-                return result.getResult(key);
-            }
+        // the flows of each config are also stored under keys which may
+        // contain "Taint", thus the key of the union is looked up exactly
+        String key = TaintAnalysiss.class.getName();
+        if (result.getKeys().contains(key)) {
+            return result.getResult(key);
         }
         throw new AnalysisException("Taint analysis result is absent");
     }
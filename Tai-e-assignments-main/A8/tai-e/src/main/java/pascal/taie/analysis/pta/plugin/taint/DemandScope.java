@@ -0,0 +1,253 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Computes the entry methods for demand-driven taint analysis.
+ * <p>
+ * On a call graph built by class hierarchy analysis from the main method,
+ * this class finds the methods that contain calls to sources, and
+ * the methods that contain calls to sinks. A taint flow from a source
+ * call to a sink call must go through a common (transitive) caller of
+ * the two methods, where the tainted value returned from one call site
+ * is passed to another call site. Thus, for each pair of source and
+ * sink methods, the common callers which reach the source method and
+ * the sink method through different call sites are selected as entry
+ * methods. If there is no such caller, the highest common callers are
+ * selected. The pointer analysis then starts from these methods instead
+ * of the main method, and does not analyze the code that is only
+ * reachable elsewhere.
+ */
+class DemandScope {
+
+    private final ClassHierarchy hierarchy;
+
+    private final List<TaintConfig> configs;
+
+    private final MultiMap<JMethod, JMethod> callees = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, JMethod> callers = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, Invoke> callSites = Maps.newMultiMap();
+
+    private final MultiMap<Invoke, JMethod> callSiteCallees = Maps.newMultiMap();
+
+    /**
+     * Call sites which call source methods.
+     */
+    private final Set<Invoke> sourceCalls = Sets.newHybridSet();
+
+    /**
+     * Call sites which call sink methods.
+     */
+    private final Set<Invoke> sinkCalls = Sets.newHybridSet();
+
+    /**
+     * Methods containing calls to source methods.
+     */
+    private final Set<JMethod> sourceMethods = Sets.newHybridOrderedSet();
+
+    /**
+     * Methods containing calls to sink methods.
+     */
+    private final Set<JMethod> sinkMethods = Sets.newHybridOrderedSet();
+
+    DemandScope(ClassHierarchy hierarchy, List<TaintConfig> configs) {
+        this.hierarchy = hierarchy;
+        this.configs = configs;
+    }
+
+    /**
+     * @return the entry methods that cover all potential taint flows
+     * in the code reachable from {@code main}.
+     */
+    List<JMethod> computeEntryMethods(JMethod main) {
+        buildCallGraph(main);
+        Set<JMethod> entries = Sets.newHybridOrderedSet();
+        for (JMethod source : sourceMethods) {
+            Set<JMethod> sourceCallers = getTransitiveCallers(source);
+            for (JMethod sink : sinkMethods) {
+                Set<JMethod> sinkCallers = getTransitiveCallers(sink);
+                Set<JMethod> common = Sets.newHybridOrderedSet();
+                common.addAll(sinkCallers);
+                common.retainAll(sourceCallers);
+                Set<JMethod> meetings = Sets.newHybridOrderedSet();
+                for (JMethod method : common) {
+                    if (isMeeting(method, source, sourceCallers,
+                            sink, sinkCallers)) {
+                        meetings.add(method);
+                    }
+                }
+                entries.addAll(meetings.isEmpty() ? getHighest(common) : meetings);
+            }
+        }
+        return List.copyOf(entries);
+    }
+
+    private void buildCallGraph(JMethod main) {
+        Set<JMethod> reachable = Sets.newSet();
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(main);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (method.isAbstract() || !reachable.add(method)) {
+                continue;
+            }
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof Invoke invoke) {
+                    callSites.put(method, invoke);
+                    for (JMethod callee : resolve(invoke)) {
+                        callSiteCallees.put(invoke, callee);
+                        for (TaintConfig config : configs) {
+                            if (!config.getSourcesOf(callee).isEmpty()) {
+                                sourceMethods.add(method);
+                                sourceCalls.add(invoke);
+                            }
+                            if (!config.getSinksOf(callee).isEmpty()) {
+                                sinkMethods.add(method);
+                                sinkCalls.add(invoke);
+                            }
+                        }
+                        if (callees.put(method, callee)) {
+                            callers.put(callee, method);
+                            workList.add(callee);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the callees of a call site by class hierarchy analysis.
+     */
+    private Set<JMethod> resolve(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        Set<JMethod> result = Sets.newHybridSet();
+        switch (kind) {
+            case STATIC -> addIfNotNull(result, hierarchy.resolveMethod(methodRef));
+            case SPECIAL -> addIfNotNull(result,
+                    hierarchy.dispatch(methodRef.getDeclaringClass(), methodRef));
+            case VIRTUAL, INTERFACE -> {
+                for (JClass jclass : hierarchy.getAllSubclassesOf(
+                        methodRef.getDeclaringClass(), true)) {
+                    if (!jclass.isAbstract()) {
+                        addIfNotNull(result, hierarchy.dispatch(jclass, methodRef));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addIfNotNull(Set<JMethod> set, JMethod method) {
+        if (method != null) {
+            set.add(method);
+        }
+    }
+
+    /**
+     * @return the given method and all its transitive callers.
+     */
+    private Set<JMethod> getTransitiveCallers(JMethod method) {
+        Set<JMethod> result = Sets.newHybridOrderedSet();
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(method);
+        while (!workList.isEmpty()) {
+            JMethod m = workList.poll();
+            if (result.add(m)) {
+                workList.addAll(callers.get(m));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if taint flows from {@code source} to {@code sink}
+     * may meet in {@code method}, i.e., one call site in {@code method}
+     * calls a source method (when {@code method} is {@code source}) or
+     * reaches {@code source}, and another call site calls a sink method
+     * (when {@code method} is {@code sink}) or reaches {@code sink}.
+     */
+    private boolean isMeeting(JMethod method,
+                              JMethod source, Set<JMethod> sourceCallers,
+                              JMethod sink, Set<JMethod> sinkCallers) {
+        for (Invoke toSource : callSites.get(method)) {
+            if (!(method == source && sourceCalls.contains(toSource))
+                    && !reachesAny(toSource, sourceCallers)) {
+                continue;
+            }
+            for (Invoke toSink : callSites.get(method)) {
+                if (toSink != toSource &&
+                        ((method == sink && sinkCalls.contains(toSink))
+                                || reachesAny(toSink, sinkCallers))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if any callee of {@code callSite} is in {@code methods}.
+     */
+    private boolean reachesAny(Invoke callSite, Set<JMethod> methods) {
+        return callSiteCallees.get(callSite)
+                .stream()
+                .anyMatch(methods::contains);
+    }
+
+    /**
+     * @return the methods in {@code methods} which are not called by other
+     * methods in {@code methods}. If there is no such method, e.g., all
+     * methods are in a recursion, returns {@code methods}.
+     */
+    private Set<JMethod> getHighest(Set<JMethod> methods) {
+        Set<JMethod> highest = Sets.newHybridOrderedSet();
+        for (JMethod method : methods) {
+            if (callers.get(method).stream()
+                    .noneMatch(caller -> caller != method && methods.contains(caller))) {
+                highest.add(method);
+            }
+        }
+        return highest.isEmpty() ? methods : highest;
+    }
+}
@@ -25,12 +25,40 @@ package pascal.taie.analysis.pta.plugin.taint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -38,9 +66,39 @@ public class TaintAnalysiss {
 
     private static final Logger logger = LogManager.getLogger(TaintAnalysiss.class);
 
+    private static final String ENTRY_OBJ_DESC = "DemandEntryObj";
+
+    /**
+     * Key of the witness paths of taint flows in pointer analysis result.
+     */
+    public static final String WITNESS_PATHS = "witness-paths";
+
+    /**
+     * Prefix of the keys of the taint flows detected by each taint config
+     * in pointer analysis result. The key of a config is the prefix followed
+     * by the path of the config file.
+     */
+    public static final String CONFIG_FLOWS_PREFIX = "taint-flows:";
+
+    /**
+     * Separator of the paths in option taint-config. It differs from
+     * ';', which separates the options given by option -a.
+     */
+    private static final String CONFIG_SEP = ",";
+
     private final TaintManager manager;
 
-    private final TaintConfig config;
+    /**
+     * Paths of taint config files, indexed by config ids.
+     */
+    private final List<String> configPaths;
+
+    /**
+     * Taint configs, indexed by config ids. All configs share the same
+     * pointer analysis, and the taint objects are tagged with config ids,
+     * so that taint objects of different configs do not interfere.
+     */
+    private final List<TaintConfig> configs;
 
     private final Solver solver;
 
@@ -48,30 +106,443 @@ public class TaintAnalysiss {
 
     private final Context emptyContext;
 
+    /**
+     * Taint transfers whose "from" variables are known, i.e., the
+     * taint objects pointed to by the key variable are transferred
+     * to the targets.
+     */
+    private final MultiMap<CSVar, TransferTarget> transferTargets = Maps.newMultiMap();
+
+    /**
+     * Whether to start pointer analysis from the methods selected by
+     * {@link DemandScope} instead of the main method.
+     */
+    private final boolean isDemandDriven;
+
+    /**
+     * Separate lane for propagating taint objects, or null if taint
+     * objects are propagated in points-to sets.
+     */
+    private final TaintLane lane;
+
+    /**
+     * Provenance of taint objects, from which witness paths of taint
+     * flows are reconstructed, or null if witness paths are disabled.
+     */
+    private final TaintProvenance provenance;
+
+    /**
+     * Taint objects introduced by sources and the variables receiving them,
+     * from which the provenance is recorded if taint objects are propagated
+     * in points-to sets.
+     */
+    private final MultiMap<CSVar, Obj> sourceTaints = Maps.newMultiMap();
+
     public TaintAnalysiss(Solver solver) {
         manager = new TaintManager();
         this.solver = solver;
         csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
-        config = TaintConfig.readConfig(
-                solver.getOptions().getString("taint-config"),
-                World.get().getClassHierarchy(),
-                World.get().getTypeSystem());
-        logger.info(config);
+        configPaths = Arrays.stream(solver.getOptions()
+                        .getString("taint-config").split(CONFIG_SEP))
+                .map(String::trim)
+                .toList();
+        String cacheDir = solver.getOptions().getString("taint-config-cache");
+        TaintConfigCache cache = cacheDir != null ?
+                new TaintConfigCache(cacheDir) : null;
+        configs = configPaths.stream()
+                .map(path -> cache != null ?
+                        cache.load(path, World.get().getClassHierarchy(),
+                                World.get().getTypeSystem()) :
+                        TaintConfig.readConfig(path,
+                                World.get().getClassHierarchy(),
+                                World.get().getTypeSystem()))
+                .toList();
+        configs.forEach(logger::info);
+        isDemandDriven = solver.getOptions().getBooleanOrDefault("taint-demand", false);
+        provenance = solver.getOptions().getBooleanOrDefault("taint-witness", false) ?
+                new TaintProvenance() : null;
+        lane = solver.getOptions().getBooleanOrDefault("taint-lane", false) ?
+                new TaintLane(manager, solver::getPFGSuccsOf, transferTargets,
+                        this::onNewReceiverTaint, provenance) :
+                null;
     }
 
     // TODO - finish me
 
+    /**
+     * @return the entry methods of pointer analysis. In demand-driven mode,
+     * these are the methods computed by {@link DemandScope}, otherwise,
+     * it is the main method.
+     */
+    public List<JMethod> getEntryMethods(JMethod main) {
+        if (!isDemandDriven) {
+            return List.of(main);
+        }
+        List<JMethod> entries = new DemandScope(
+                World.get().getClassHierarchy(), configs)
+                .computeEntryMethods(main);
+        logger.info("Demand-driven taint analysis starts from {} method(s): {}",
+                entries.size(), entries);
+        return entries;
+    }
+
+    /**
+     * Handles a new entry method of pointer analysis. As an entry method
+     * selected in demand-driven mode has callers which are not analyzed,
+     * its this variable and parameters point to mock objects of their
+     * declared types, or of the concrete subclasses of the declared types
+     * (see {@link #getEntryObjTypes(Type)}).
+     */
+    public void onNewEntryMethod(CSMethod csMethod) {
+        JMethod method = csMethod.getMethod();
+        if (!isDemandDriven || method.equals(World.get().getMainMethod())) {
+            return;
+        }
+        IR ir = method.getIR();
+        List<Var> vars = new ArrayList<>(ir.getParams());
+        if (ir.getThis() != null) {
+            vars.add(ir.getThis());
+        }
+        for (Var var : vars) {
+            for (Type type : getEntryObjTypes(var.getType())) {
+                Obj obj = new MockObj(ENTRY_OBJ_DESC, var, type, method);
+                solver.addPointsTo(csManager.getCSVar(csMethod.getContext(), var),
+                        emptyContext, obj);
+            }
+        }
+    }
+
+    /**
+     * @return the types of the mock objects for a variable of given type.
+     * As calls on objects of interfaces and abstract classes cannot be
+     * resolved, the concrete subclasses of such types are used instead,
+     * and the application classes among them are preferred.
+     */
+    private static List<Type> getEntryObjTypes(Type type) {
+        if (type instanceof ArrayType) {
+            return List.of(type);
+        }
+        if (type instanceof ClassType classType) {
+            JClass jclass = classType.getJClass();
+            if (!jclass.isAbstract() && !jclass.isInterface()) {
+                return List.of(type);
+            }
+            List<JClass> concrete = World.get().getClassHierarchy()
+                    .getAllSubclassesOf(jclass, false)
+                    .stream()
+                    .filter(c -> !c.isAbstract() && !c.isInterface())
+                    .toList();
+            List<JClass> app = concrete.stream()
+                    .filter(JClass::isApplication)
+                    .toList();
+            return (app.isEmpty() ? concrete : app).stream()
+                    .map(c -> (Type) c.getType())
+                    .toList();
+        }
+        return List.of();
+    }
+
+    /**
+     * Handles sources and taint transfers of a new call edge for all
+     * taint configs. The configured sources and transfers of the callee
+     * are looked up from the indexes of {@link TaintConfig}.
+     */
+    public void onNewCallEdge(CSCallSite csCallSite, CSMethod csCallee) {
+        for (int i = 0; i < configs.size(); ++i) {
+            processCallEdge(csCallSite, csCallee.getMethod(), i);
+        }
+    }
+
+    /**
+     * Handles a taint object arriving at a receiver variable in lane mode.
+     * As pointer analysis does not resolve the calls on taint objects,
+     * the callees are resolved here by the type of the taint object, and
+     * the resolved call edges are added to pointer analysis, so that the
+     * callees are analyzed like the ones of the calls on other objects,
+     * and the sources and taint transfers of the edges are handled by
+     * {@link #onNewCallEdge(CSCallSite, CSMethod)}. The taint object
+     * itself flows to this variable of the callees along the lane.
+     */
+    private void onNewReceiverTaint(CSVar recv, Obj taint) {
+        CSObj recvObj = csManager.getCSObj(emptyContext, taint);
+        for (Invoke callSite : recv.getVar().getInvokes()) {
+            JMethod callee = CallGraphs.resolveCallee(taint.getType(), callSite);
+            if (callee != null) {
+                CSCallSite csCallSite = csManager.getCSCallSite(
+                        recv.getContext(), callSite);
+                CSMethod csCallee = solver.addCallEdge(csCallSite, recvObj, callee);
+                Var thisVar = callee.getIR().getThis();
+                if (thisVar != null) {
+                    lane.addTaint(csManager.getCSVar(csCallee.getContext(), thisVar),
+                            taint);
+                }
+            }
+        }
+    }
+
+    /**
+     * Propagates the taint objects in lane mode along a new edge of
+     * the pointer flow graph.
+     */
+    public void onNewPFGEdge(Pointer source, Pointer target) {
+        if (lane != null) {
+            lane.addEdge(source, target);
+        }
+    }
+
+    private void processCallEdge(CSCallSite csCallSite, JMethod callee,
+                                 int configId) {
+        TaintConfig config = configs.get(configId);
+        Invoke callSite = csCallSite.getCallSite();
+        Context context = csCallSite.getContext();
+        Var lhs = callSite.getLValue();
+        if (lhs != null) {
+            for (Source source : config.getSourcesOf(callee)) {
+                Obj taint = manager.makeTaint(callSite, source.type(), configId);
+                CSVar csLHS = csManager.getCSVar(context, lhs);
+                if (lane != null) {
+                    lane.addTaint(csLHS, taint);
+                } else {
+                    solver.addPointsTo(csLHS, emptyContext, taint);
+                    if (provenance != null) {
+                        sourceTaints.put(csLHS, taint);
+                    }
+                }
+            }
+        }
+        for (TaintConfig.TransferGroup group :
+                config.getTransfersOf(callee)) {
+            Var from = getVar(callSite, group.from());
+            Var to = getVar(callSite, group.to());
+            if (from != null && to != null) {
+                CSVar csFrom = csManager.getCSVar(context, from);
+                TransferTarget target = new TransferTarget(
+                        csManager.getCSVar(context, to), group.types(), configId);
+                if (transferTargets.put(csFrom, target)) {
+                    if (lane != null) {
+                        lane.addTransfer(csFrom, target);
+                    } else {
+                        transferTaints(csFrom.getPointsToSet(), target);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Transfers the taint objects newly pointed to by a variable.
+     */
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        if (lane != null) {
+            // taint objects are not in points-to sets
+            return;
+        }
+        for (TransferTarget target : transferTargets.get(csVar)) {
+            transferTaints(pts, target);
+        }
+    }
+
+    private void transferTaints(PointsToSet pts, TransferTarget target) {
+        for (CSObj csObj : pts) {
+            Obj obj = csObj.getObject();
+            if (manager.isTaint(obj) &&
+                    manager.getConfigId(obj) == target.configId()) {
+                Invoke sourceCall = manager.getSourceCall(obj);
+                for (Type type : target.types()) {
+                    solver.addPointsTo(target.to(), emptyContext,
+                            manager.makeTaint(sourceCall, type, target.configId()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the variable at given index of a call site, where the index
+     * follows {@link TaintTransfer}, or null if the variable is absent.
+     */
+    private static Var getVar(Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        return switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp instanceExp ?
+                    instanceExp.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getLValue();
+            default -> invokeExp.getArg(index);
+        };
+    }
+
     public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
-        solver.getResult().storeResult(getClass().getName(), taintFlows);
+        if (lane != null) {
+            lane.solve();
+        } else if (provenance != null) {
+            recordProvenance();
+        }
+        // the flows of all configs are stored under the key of this class,
+        // and the flows of each config are also stored under its own key
+        Set<TaintFlow> allTaintFlows = new TreeSet<>();
+        Map<TaintFlow, List<Pointer>> witnessPaths = Maps.newMap();
+        for (int i = 0; i < configs.size(); ++i) {
+            Set<TaintFlow> taintFlows = collectTaintFlows(i);
+            solver.getResult().storeResult(
+                    CONFIG_FLOWS_PREFIX + configPaths.get(i), taintFlows);
+            allTaintFlows.addAll(taintFlows);
+            if (provenance != null) {
+                collectWitnessPaths(taintFlows, i).forEach(witnessPaths::putIfAbsent);
+            }
+        }
+        solver.getResult().storeResult(getClass().getName(), allTaintFlows);
+        if (provenance != null) {
+            solver.getResult().storeResult(WITNESS_PATHS, witnessPaths);
+        }
     }
 
-    private Set<TaintFlow> collectTaintFlows() {
+    private Set<TaintFlow> collectTaintFlows(int configId) {
         Set<TaintFlow> taintFlows = new TreeSet<>();
         PointerAnalysisResult result = solver.getResult();
         // TODO - finish me
         // You could query pointer analysis results you need via variable result.
+        result.getCallGraph().edges().forEach(edge ->
+                collectTaintFlows(edge.getCallSite(), edge.getCallee(),
+                        configId, taintFlows));
         return taintFlows;
     }
+
+    private void collectTaintFlows(Invoke callSite, JMethod callee,
+                                   int configId, Set<TaintFlow> taintFlows) {
+        for (Sink sink : configs.get(configId).getSinksOf(callee)) {
+            Var arg = callSite.getInvokeExp().getArg(sink.index());
+            for (Obj obj : getTaintCandidates(arg)) {
+                if (manager.isTaint(obj) &&
+                        manager.getConfigId(obj) == configId) {
+                    taintFlows.add(new TaintFlow(
+                            manager.getSourceCall(obj), callSite, sink.index()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the shortest witness path of each taint flow detected by
+     * given config. As a taint flow may be caused by the taint objects of
+     * different types arriving at the sink argument in different contexts,
+     * the shortest one of their paths is selected.
+     */
+    private Map<TaintFlow, List<Pointer>> collectWitnessPaths(
+            Set<TaintFlow> taintFlows, int configId) {
+        Map<TaintFlow, List<Pointer>> witnessPaths = Maps.newMap();
+        for (TaintFlow taintFlow : taintFlows) {
+            Var arg = taintFlow.sinkCall().getInvokeExp().getArg(taintFlow.index());
+            List<Pointer> shortest = null;
+            for (CSVar csArg : csManager.getCSVarsOf(arg)) {
+                for (Obj taint : getTaints(csArg)) {
+                    if (manager.getConfigId(taint) == configId &&
+                            manager.getSourceCall(taint).equals(taintFlow.sourceCall())) {
+                        List<Pointer> path = provenance.getPath(
+                                csArg, manager.getTaintId(taint));
+                        if (shortest == null || path.size() < shortest.size()) {
+                            shortest = path;
+                        }
+                    }
+                }
+            }
+            if (shortest != null) {
+                witnessPaths.put(taintFlow, shortest);
+            }
+        }
+        return witnessPaths;
+    }
+
+    /**
+     * Records the provenance of the taint objects propagated in points-to
+     * sets. Starting from the variables receiving taint objects from sources,
+     * the pointer flow graph and taint transfers are traversed in breadth-first
+     * order, following only the pointers that the taint objects actually
+     * reach, so that the recorded path of each taint object is a shortest one.
+     */
+    private void recordProvenance() {
+        Map<Pointer, BitSet> visited = Maps.newMap();
+        Queue<Pointer> pointers = new ArrayDeque<>();
+        Queue<Obj> taints = new ArrayDeque<>();
+        sourceTaints.forEach((csVar, taint) ->
+                visit(csVar, taint, null, null, visited, pointers, taints));
+        while (!pointers.isEmpty()) {
+            Pointer pointer = pointers.poll();
+            Obj taint = taints.poll();
+            for (Pointer succ : solver.getPFGSuccsOf(pointer)) {
+                visit(succ, taint, pointer, taint, visited, pointers, taints);
+            }
+            if (pointer instanceof CSVar csVar) {
+                for (TransferTarget target : transferTargets.get(csVar)) {
+                    if (manager.getConfigId(taint) != target.configId()) {
+                        continue;
+                    }
+                    Invoke sourceCall = manager.getSourceCall(taint);
+                    for (Type type : target.types()) {
+                        Obj newTaint = manager.makeTaint(
+                                sourceCall, type, target.configId());
+                        visit(target.to(), newTaint, pointer, taint,
+                                visited, pointers, taints);
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(Pointer pointer, Obj taint, Pointer pred, Obj predTaint,
+                       Map<Pointer, BitSet> visited,
+                       Queue<Pointer> pointers, Queue<Obj> taints) {
+        int taintId = manager.getTaintId(taint);
+        BitSet bits = visited.computeIfAbsent(pointer, unused -> new BitSet());
+        if (!bits.get(taintId) && pointer.getPointsToSet()
+                .contains(csManager.getCSObj(emptyContext, taint))) {
+            bits.set(taintId);
+            if (pred != null) {
+                provenance.record(pointer, taintId,
+                        pred, manager.getTaintId(predTaint));
+            }
+            pointers.add(pointer);
+            taints.add(taint);
+        }
+    }
+
+    /**
+     * @return the taint objects pointed to by given variable.
+     */
+    private Set<Obj> getTaints(CSVar csVar) {
+        if (lane != null) {
+            return lane.getTaints(csVar);
+        }
+        Set<Obj> taints = Sets.newHybridSet();
+        csVar.getPointsToSet().forEach(csObj -> {
+            if (manager.isTaint(csObj.getObject())) {
+                taints.add(csObj.getObject());
+            }
+        });
+        return taints;
+    }
+
+    /**
+     * @return the objects which may be taint objects pointed to by given
+     * variable (in any context).
+     */
+    private Set<Obj> getTaintCandidates(Var var) {
+        if (lane != null) {
+            Set<Obj> taints = Sets.newHybridSet();
+            csManager.getCSVarsOf(var).forEach(csVar ->
+                    taints.addAll(lane.getTaints(csVar)));
+            return taints;
+        } else {
+            return solver.getResult().getPointsToSet(var);
+        }
+    }
+
+    /**
+     * Target of taint transfers from a variable.
+     *
+     * @param to       the variable that receives the transferred taint objects
+     * @param types    types of the transferred taint objects
+     * @param configId id of the taint config which the transfer belongs to
+     */
+    record TransferTarget(CSVar to, List<Type> types, int configId) {
+    }
 }
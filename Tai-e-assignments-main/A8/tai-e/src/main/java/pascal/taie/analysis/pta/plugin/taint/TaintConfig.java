@@ -42,7 +42,12 @@ import pascal.taie.util.collection.Sets;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -67,11 +72,66 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
-    private TaintConfig(Set<Source> sources, Set<Sink> sinks,
-                        Set<TaintTransfer> transfers) {
+    /**
+     * Source method -> sources of the method.
+     */
+    private final Map<JMethod, List<Source>> method2Sources;
+
+    /**
+     * Sink method -> sinks of the method, ordered by argument index.
+     */
+    private final Map<JMethod, List<Sink>> method2Sinks;
+
+    /**
+     * Transfer method -> taint transfers of the method, grouped by
+     * (from, to).
+     */
+    private final Map<JMethod, List<TransferGroup>> method2Transfers;
+
+    TaintConfig(Set<Source> sources, Set<Sink> sinks,
+                Set<TaintTransfer> transfers) {
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
+        this.method2Sources = indexSources(sources);
+        this.method2Sinks = indexSinks(sinks);
+        this.method2Transfers = indexTransfers(transfers);
+    }
+
+    private static Map<JMethod, List<Source>> indexSources(Set<Source> sources) {
+        Map<JMethod, List<Source>> result = new IdentityHashMap<>();
+        sources.forEach(source -> result.computeIfAbsent(
+                source.method(), unused -> new ArrayList<>()).add(source));
+        return result;
+    }
+
+    private static Map<JMethod, List<Sink>> indexSinks(Set<Sink> sinks) {
+        Map<JMethod, List<Sink>> result = new IdentityHashMap<>();
+        sinks.forEach(sink -> result.computeIfAbsent(
+                sink.method(), unused -> new ArrayList<>()).add(sink));
+        result.values().forEach(list ->
+                list.sort(Comparator.comparingInt(Sink::index)));
+        return result;
+    }
+
+    private static Map<JMethod, List<TransferGroup>> indexTransfers(
+            Set<TaintTransfer> transfers) {
+        Map<JMethod, List<TransferGroup>> result = new IdentityHashMap<>();
+        for (TaintTransfer transfer : transfers) {
+            List<TransferGroup> groups = result.computeIfAbsent(
+                    transfer.method(), unused -> new ArrayList<>());
+            TransferGroup group = groups.stream()
+                    .filter(g -> g.from() == transfer.from() && g.to() == transfer.to())
+                    .findFirst()
+                    .orElseGet(() -> {
+                        TransferGroup g = new TransferGroup(
+                                transfer.from(), transfer.to(), new ArrayList<>());
+                        groups.add(g);
+                        return g;
+                    });
+            group.types().add(transfer.type());
+        }
+        return result;
     }
 
     /**
@@ -119,6 +179,27 @@ class TaintConfig {
         return transfers;
     }
 
+    /**
+     * @return sources of given method.
+     */
+    List<Source> getSourcesOf(JMethod method) {
+        return method2Sources.getOrDefault(method, List.of());
+    }
+
+    /**
+     * @return sinks of given method, ordered by argument index.
+     */
+    List<Sink> getSinksOf(JMethod method) {
+        return method2Sinks.getOrDefault(method, List.of());
+    }
+
+    /**
+     * @return taint transfers of given method, grouped by (from, to).
+     */
+    List<TransferGroup> getTransfersOf(JMethod method) {
+        return method2Transfers.getOrDefault(method, List.of());
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("TaintConfig:");
@@ -140,6 +221,13 @@ class TaintConfig {
         return sb.toString();
     }
 
+    /**
+     * Taint transfers of a method which share the same "from" and "to"
+     * variables, and differ only in the types of transferred taint objects.
+     */
+    record TransferGroup(int from, int to, List<Type> types) {
+    }
+
     /**
      * Deserializer for {@link TaintConfig}.
      */
@@ -0,0 +1,298 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Options;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Sets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Cache of compiled taint configs.
+ * <p>
+ * A compiled config contains only the entries whose methods are present
+ * in the class hierarchy, and stores them in a compact binary file, where
+ * method signatures and type names are kept in a string table and entries
+ * refer to them by indexes. Loading a compiled config skips YAML parsing
+ * and the lookups of absent methods.
+ * <p>
+ * The cache file of a config is named by the hash of the content of the
+ * config file and the fingerprint of the class path (see
+ * {@link #getFingerprint(String)}), thus a config is recompiled when
+ * either the config file or the analyzed program changes.
+ */
+class TaintConfigCache {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigCache.class);
+
+    private static final int MAGIC = 0x54434647; // "TCFG"
+
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".tcfg";
+
+    private final File dir;
+
+    TaintConfigCache(String dir) {
+        this.dir = new File(dir);
+    }
+
+    /**
+     * Loads the taint config of given path from the cache. If the compiled
+     * config is absent or invalid, reads the config file and compiles it.
+     */
+    TaintConfig load(String path, ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        File cacheFile = null;
+        try {
+            cacheFile = new File(dir, computeKey(new File(path)) + SUFFIX);
+            if (cacheFile.exists()) {
+                TaintConfig config = read(cacheFile, hierarchy, typeSystem);
+                if (config != null) {
+                    logger.info("Loaded compiled taint config {} from {}",
+                            path, cacheFile);
+                    return config;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read compiled taint config of {}", path, e);
+        }
+        TaintConfig config = TaintConfig.readConfig(path, hierarchy, typeSystem);
+        if (cacheFile != null) {
+            try {
+                write(cacheFile, config);
+            } catch (IOException e) {
+                logger.warn("Failed to write compiled taint config to {}",
+                        cacheFile, e);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * @return the hash of the content of given config file and
+     * the fingerprint of the class path.
+     */
+    private static String computeKey(File configFile) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(configFile.toPath()));
+            digest.update(getClassPathFingerprint().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return the string that identifies the classes being analyzed, i.e.,
+     * the fingerprint of the class path, and the options that affect
+     * which JDK classes are loaded.
+     */
+    private static String getClassPathFingerprint() throws IOException {
+        Options options = World.get().getOptions();
+        return options.getJavaVersion() + "|" + options.isPrependJVM() +
+                getFingerprint(options.getClassPath());
+    }
+
+    /**
+     * @return the fingerprint of given class path, which consists of the
+     * sizes and modification times of its entries. For a directory entry,
+     * the names, sizes and modification times of all files under it are
+     * included, as those of the directory itself do not change when
+     * the files under it change.
+     */
+    static String getFingerprint(String classPath) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                File file = new File(entry);
+                sb.append('|').append(file.getAbsolutePath());
+                if (file.isDirectory()) {
+                    try (Stream<Path> paths = Files.walk(file.toPath())) {
+                        for (Path path : paths.filter(Files::isRegularFile)
+                                .sorted().toList()) {
+                            appendFile(sb.append(';').append(
+                                    file.toPath().relativize(path)), path.toFile());
+                        }
+                    }
+                } else {
+                    appendFile(sb, file);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendFile(StringBuilder sb, File file) {
+        sb.append(':').append(file.length())
+                .append(':').append(file.lastModified());
+    }
+
+    /**
+     * @return the compiled config, or null if the cache file is not
+     * a valid compiled config for the current class hierarchy.
+     */
+    private static TaintConfig read(File cacheFile, ClassHierarchy hierarchy,
+                                    TypeSystem typeSystem) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; ++i) {
+                strings[i] = in.readUTF();
+            }
+            // each string is resolved at most once
+            JMethod[] methods = new JMethod[strings.length];
+            Type[] types = new Type[strings.length];
+            int nSources = in.readInt();
+            Set<Source> sources = Sets.newSet(nSources);
+            for (int i = 0; i < nSources; ++i) {
+                JMethod method = getMethod(in.readInt(), strings, methods, hierarchy);
+                Type type = getType(in.readInt(), strings, types, typeSystem);
+                if (method == null) {
+                    return null;
+                }
+                sources.add(new Source(method, type));
+            }
+            int nSinks = in.readInt();
+            Set<Sink> sinks = Sets.newSet(nSinks);
+            for (int i = 0; i < nSinks; ++i) {
+                JMethod method = getMethod(in.readInt(), strings, methods, hierarchy);
+                int index = in.readInt();
+                if (method == null) {
+                    return null;
+                }
+                sinks.add(new Sink(method, index));
+            }
+            int nTransfers = in.readInt();
+            Set<TaintTransfer> transfers = Sets.newSet(nTransfers);
+            for (int i = 0; i < nTransfers; ++i) {
+                JMethod method = getMethod(in.readInt(), strings, methods, hierarchy);
+                int from = in.readInt();
+                int to = in.readInt();
+                Type type = getType(in.readInt(), strings, types, typeSystem);
+                if (method == null) {
+                    return null;
+                }
+                transfers.add(new TaintTransfer(method, from, to, type));
+            }
+            return new TaintConfig(Collections.unmodifiableSet(sources),
+                    Collections.unmodifiableSet(sinks),
+                    Collections.unmodifiableSet(transfers));
+        }
+    }
+
+    private static JMethod getMethod(int i, String[] strings, JMethod[] methods,
+                                     ClassHierarchy hierarchy) {
+        if (methods[i] == null) {
+            methods[i] = hierarchy.getMethod(strings[i]);
+        }
+        return methods[i];
+    }
+
+    private static Type getType(int i, String[] strings, Type[] types,
+                                TypeSystem typeSystem) {
+        if (types[i] == null) {
+            types[i] = typeSystem.getType(strings[i]);
+        }
+        return types[i];
+    }
+
+    private void write(File cacheFile, TaintConfig config) throws IOException {
+        // string ids are assigned in insertion order
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        List<int[]> sources = new ArrayList<>();
+        config.getSources().forEach(source -> sources.add(new int[]{
+                getStringId(stringIds, source.method().getSignature()),
+                getStringId(stringIds, source.type().getName())}));
+        List<int[]> sinks = new ArrayList<>();
+        config.getSinks().forEach(sink -> sinks.add(new int[]{
+                getStringId(stringIds, sink.method().getSignature()),
+                sink.index()}));
+        List<int[]> transfers = new ArrayList<>();
+        config.getTransfers().forEach(transfer -> transfers.add(new int[]{
+                getStringId(stringIds, transfer.method().getSignature()),
+                transfer.from(), transfer.to(),
+                getStringId(stringIds, transfer.type().getName())}));
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory " + dir);
+        }
+        // write to a temporary file first, so that concurrent runs
+        // never see partially written cache files
+        File tmpFile = File.createTempFile("taint-config", SUFFIX, cacheFile.getParentFile());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(stringIds.size());
+            for (String s : stringIds.keySet()) {
+                out.writeUTF(s);
+            }
+            for (List<int[]> entries : List.of(sources, sinks, transfers)) {
+                out.writeInt(entries.size());
+                for (int[] entry : entries) {
+                    for (int value : entry) {
+                        out.writeInt(value);
+                    }
+                }
+            }
+        }
+        Files.move(tmpFile.toPath(), cacheFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Wrote compiled taint config to {}", cacheFile);
+    }
+
+    private static int getStringId(Map<String, Integer> stringIds, String s) {
+        return stringIds.computeIfAbsent(s, unused -> stringIds.size());
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Propagates taint objects separately from the points-to sets.
+ * Each pointer has a bit set of the ids of the taint objects
+ * (see {@link TaintManager#getTaintId(Obj)}) that flow to it, and the
+ * bit sets are propagated along the edges of the pointer flow graph
+ * built by the pointer analysis, and along taint transfers.
+ * <p>
+ * As taint objects do not affect pointer analysis, the lane is solved
+ * after pointer analysis has finished, on the complete pointer flow graph.
+ * As pointer analysis does not resolve the calls on taint objects, each
+ * taint object arriving at a receiver variable is reported to a handler,
+ * which resolves the calls and adds them to pointer analysis. The edges
+ * added to the pointer flow graph afterwards are given by
+ * {@link #addEdge(Pointer, Pointer)}, along which the taint objects
+ * are propagated as well.
+ * If a {@link TaintProvenance} is given, the lane also records where
+ * each taint object comes from while propagating it.
+ */
+class TaintLane {
+
+    private final TaintManager manager;
+
+    /**
+     * Successors of pointers in the pointer flow graph.
+     */
+    private final Function<Pointer, Set<Pointer>> pfgSuccs;
+
+    private final MultiMap<CSVar, TaintAnalysiss.TransferTarget> transferTargets;
+
+    /**
+     * Handler of the taint objects arriving at receiver variables.
+     */
+    private final BiConsumer<CSVar, Obj> receiverHandler;
+
+    /**
+     * Taint objects that flow to each pointer.
+     */
+    private final Map<Pointer, BitSet> taints = Maps.newMap();
+
+    /**
+     * Taint objects that are waiting to be propagated to each pointer.
+     */
+    private final Map<Pointer, BitSet> pending = Maps.newMap();
+
+    private final Queue<Pointer> workList = new ArrayDeque<>();
+
+    /**
+     * Provenance of taint objects, or null if it is not recorded.
+     */
+    private final TaintProvenance provenance;
+
+    TaintLane(TaintManager manager,
+              Function<Pointer, Set<Pointer>> pfgSuccs,
+              MultiMap<CSVar, TaintAnalysiss.TransferTarget> transferTargets,
+              BiConsumer<CSVar, Obj> receiverHandler,
+              TaintProvenance provenance) {
+        this.manager = manager;
+        this.pfgSuccs = pfgSuccs;
+        this.transferTargets = transferTargets;
+        this.receiverHandler = receiverHandler;
+        this.provenance = provenance;
+    }
+
+    /**
+     * Adds a taint object to given pointer. The taint is propagated
+     * when {@link #solve()} is called.
+     */
+    void addTaint(Pointer pointer, Obj taint) {
+        BitSet bits = new BitSet();
+        bits.set(manager.getTaintId(taint));
+        addTaints(pointer, bits);
+    }
+
+    /**
+     * Handles a taint transfer added to {@link #transferTargets}.
+     * The taint objects which have arrived at {@code from} are
+     * transferred to the target.
+     */
+    void addTransfer(CSVar from, TaintAnalysiss.TransferTarget target) {
+        BitSet bits = taints.get(from);
+        if (bits != null) {
+            addTaints(target.to(), transfer(from, bits, target));
+        }
+    }
+
+    /**
+     * Handles a new edge of the pointer flow graph. The taint objects
+     * which have arrived at {@code source} are propagated to {@code target}.
+     */
+    void addEdge(Pointer source, Pointer target) {
+        BitSet bits = taints.get(source);
+        if (bits != null) {
+            if (provenance != null) {
+                bits.stream().forEach(id -> recordArrival(target, id, source, id));
+            }
+            addTaints(target, bits);
+        }
+    }
+
+    private void addTaints(Pointer pointer, BitSet bits) {
+        BitSet pendingBits = pending.get(pointer);
+        if (pendingBits == null) {
+            pending.put(pointer, (BitSet) bits.clone());
+            workList.add(pointer);
+        } else {
+            pendingBits.or(bits);
+        }
+    }
+
+    /**
+     * Propagates taint objects until fixed point.
+     */
+    void solve() {
+        while (!workList.isEmpty()) {
+            Pointer pointer = workList.poll();
+            BitSet diff = pending.remove(pointer);
+            BitSet bits = taints.computeIfAbsent(pointer, unused -> new BitSet());
+            diff.andNot(bits);
+            if (diff.isEmpty()) {
+                continue;
+            }
+            bits.or(diff);
+            for (Pointer succ : pfgSuccs.apply(pointer)) {
+                if (provenance != null) {
+                    diff.stream().forEach(id -> recordArrival(succ, id, pointer, id));
+                }
+                addTaints(succ, diff);
+            }
+            if (pointer instanceof CSVar csVar) {
+                if (!csVar.getVar().getInvokes().isEmpty()) {
+                    diff.stream().forEach(id ->
+                            receiverHandler.accept(csVar, manager.getTaint(id)));
+                }
+                for (TaintAnalysiss.TransferTarget target : transferTargets.get(csVar)) {
+                    addTaints(target.to(), transfer(pointer, diff, target));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return ids of the taint objects transferred from given taint objects
+     * at {@code from} to the target. Only the taint objects of the config
+     * of the target are transferred.
+     */
+    private BitSet transfer(Pointer from, BitSet bits,
+                            TaintAnalysiss.TransferTarget target) {
+        BitSet result = new BitSet();
+        bits.stream().forEach(id -> {
+            Obj taint = manager.getTaint(id);
+            if (manager.getConfigId(taint) != target.configId()) {
+                return;
+            }
+            Invoke sourceCall = manager.getSourceCall(taint);
+            for (Type type : target.types()) {
+                int newId = manager.getTaintId(
+                        manager.makeTaint(sourceCall, type, target.configId()));
+                if (provenance != null) {
+                    recordArrival(target.to(), newId, from, id);
+                }
+                result.set(newId);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Records the arrival of a taint object at given pointer if the pointer
+     * has not received the taint object before. This must be called before
+     * the taint object is added to the pending taints of the pointer.
+     */
+    private void recordArrival(Pointer pointer, int taintId,
+                               Pointer pred, int predTaintId) {
+        if (!contains(taints.get(pointer), taintId) &&
+                !contains(pending.get(pointer), taintId)) {
+            provenance.record(pointer, taintId, pred, predTaintId);
+        }
+    }
+
+    private static boolean contains(BitSet bits, int id) {
+        return bits != null && bits.get(id);
+    }
+
+    /**
+     * @return taint objects that flow to given pointer.
+     */
+    Set<Obj> getTaints(Pointer pointer) {
+        BitSet bits = taints.get(pointer);
+        if (bits == null) {
+            return Set.of();
+        }
+        Set<Obj> result = Sets.newHybridOrderedSet();
+        bits.stream().forEach(id -> result.add(manager.getTaint(id)));
+        return result;
+    }
+}
@@ -30,6 +30,10 @@ import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Manages taint objects.
  */
@@ -37,18 +41,72 @@ class TaintManager {
 
     private static final String TAINT_DESC = "TaintObj";
 
-    private final TwoKeyMap<Invoke, Type, Obj> taints = Maps.newTwoKeyMap();
+    /**
+     * Taint objects of each taint config, indexed by config ids.
+     */
+    private final List<TwoKeyMap<Invoke, Type, Obj>> taints = new ArrayList<>();
+
+    /**
+     * Taint objects in creation order, i.e., indexed by their ids.
+     */
+    private final List<Obj> taintList = new ArrayList<>();
+
+    private final Map<Obj, Integer> taintIds = Maps.newMap();
+
+    /**
+     * Config ids of taint objects, indexed by the ids of taint objects.
+     */
+    private final List<Integer> configIds = new ArrayList<>();
 
     /**
      * Makes a taint object for given source and type.
      *
-     * @param source invocation to the source method, i.e., source call
-     * @param type   type of the taint object
-     * @return the taint object for given source and type.
+     * @param source   invocation to the source method, i.e., source call
+     * @param type     type of the taint object
+     * @param configId id of the taint config which the source belongs to
+     * @return the taint object for given source, type and config.
+     */
+    Obj makeTaint(Invoke source, Type type, int configId) {
+        while (taints.size() <= configId) {
+            taints.add(Maps.newTwoKeyMap());
+        }
+        return taints.get(configId).computeIfAbsent(source, type, (s, t) -> {
+            // taint objects of different configs must not be equal
+            String desc = configId == 0 ? TAINT_DESC : TAINT_DESC + "#" + configId;
+            Obj taint = new MockObj(desc, s, t);
+            taintIds.put(taint, taintList.size());
+            taintList.add(taint);
+            configIds.add(configId);
+            return taint;
+        });
+    }
+
+    /**
+     * @return the id of given taint object. The ids of taint objects
+     * are consecutive integers starting from 0.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    int getTaintId(Obj taint) {
+        Integer id = taintIds.get(taint);
+        if (id == null) {
+            throw new AnalysisException(taint + " is not a taint object");
+        }
+        return id;
+    }
+
+    /**
+     * @return the taint object of given id.
+     */
+    Obj getTaint(int id) {
+        return taintList.get(id);
+    }
+
+    /**
+     * @return the id of the taint config which given taint object belongs to.
+     * @throws AnalysisException if given object is not a taint object.
      */
-    Obj makeTaint(Invoke source, Type type) {
-        return taints.computeIfAbsent(source, type,
-                (s, t) -> new MockObj(TAINT_DESC, s, t));
+    int getConfigId(Obj taint) {
+        return configIds.get(getTaintId(taint));
     }
 
     /**
@@ -56,7 +114,7 @@ class TaintManager {
      */
     boolean isTaint(Obj obj) {
         return obj instanceof MockObj &&
-                ((MockObj) obj).getDescription().equals(TAINT_DESC);
+                ((MockObj) obj).getDescription().startsWith(TAINT_DESC);
     }
 
     /**
@@ -0,0 +1,156 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the provenance of taint objects, either while they are propagated
+ * by {@link TaintLane}, or after they are propagated in points-to sets.
+ * For each pair of pointer and taint object, it keeps the pair from which
+ * the taint object first arrives at the pointer, i.e., the source of the
+ * pointer flow graph edge or taint transfer that introduced it. The pairs
+ * are encoded as longs and stored in an open-addressing table, so that
+ * each recorded arrival costs two longs.
+ * <p>
+ * Only the first arrival of each taint object at each pointer is recorded,
+ * thus the table never grows beyond the total size of the taint sets.
+ */
+class TaintProvenance {
+
+    private static final long EMPTY = -1L;
+
+    private final Map<Pointer, Integer> pointerIds = Maps.newMap();
+
+    private final List<Pointer> pointers = new ArrayList<>();
+
+    private long[] keys = newTable(1024);
+
+    private long[] preds = new long[keys.length];
+
+    private int size = 0;
+
+    /**
+     * Records that the taint object of id {@code taintId} arrives at
+     * {@code pointer} from taint object of id {@code predTaintId} at
+     * {@code pred}. Does nothing if the arrival has been recorded.
+     */
+    void record(Pointer pointer, int taintId, Pointer pred, int predTaintId) {
+        long key = encode(getPointerId(pointer), taintId);
+        int i = indexOf(keys, key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            preds[i] = encode(getPointerId(pred), predTaintId);
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+    }
+
+    /**
+     * @return the pointers which the taint object of id {@code taintId}
+     * goes through from where it is introduced to {@code pointer}.
+     * The first pointer is the one where the source introduces the taint
+     * object, and the last one is {@code pointer}.
+     */
+    List<Pointer> getPath(Pointer pointer, int taintId) {
+        List<Pointer> path = new ArrayList<>();
+        path.add(pointer);
+        Integer pointerId = pointerIds.get(pointer);
+        if (pointerId != null) {
+            long key = encode(pointerId, taintId);
+            long pred;
+            // recorded arrivals form no cycles, as the predecessor
+            // always receives the taint object earlier
+            while ((pred = getPred(key)) != EMPTY) {
+                path.add(pointers.get((int) (pred >>> 32)));
+                key = pred;
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return the number of recorded arrivals.
+     */
+    int size() {
+        return size;
+    }
+
+    private long getPred(long key) {
+        int i = indexOf(keys, key);
+        return keys[i] == EMPTY ? EMPTY : preds[i];
+    }
+
+    private int getPointerId(Pointer pointer) {
+        return pointerIds.computeIfAbsent(pointer, p -> {
+            pointers.add(p);
+            return pointers.size() - 1;
+        });
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldPreds = preds;
+        keys = newTable(oldKeys.length * 2);
+        preds = new long[keys.length];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != EMPTY) {
+                int j = indexOf(keys, oldKeys[i]);
+                keys[j] = oldKeys[i];
+                preds[j] = oldPreds[i];
+            }
+        }
+    }
+
+    /**
+     * @return the slot of given key in the table, or the empty slot
+     * where the key should be put if it is absent.
+     */
+    private static int indexOf(long[] table, long key) {
+        int mask = table.length - 1;
+        int i = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (table[i] != EMPTY && table[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static long encode(int pointerId, int taintId) {
+        return ((long) pointerId << 32) | taintId;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Sets;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Hash-conses points-to sets. Points-to sets with the same objects are
+ * replaced by the points-to sets that share one canonical set of objects,
+ * and the returned points-to sets are copied on write.
+ * <p>
+ * The canonical sets are weakly held, so that a canonical set is released
+ * once all points-to sets sharing it have been copied on write.
+ */
+public class PointsToSetStore {
+
+    /**
+     * Canonical sets of objects, each of which is mapped to itself.
+     */
+    private final Map<Set<CSObj>, WeakReference<Set<CSObj>>> canonicalSets
+            = new WeakHashMap<>();
+
+    /**
+     * Number of points-to sets that have been interned.
+     */
+    private int interned;
+
+    /**
+     * Number of canonical sets that have been created.
+     */
+    private int created;
+
+    /**
+     * @return a points-to set with the same objects as given points-to set,
+     * which shares the objects with the other points-to sets returned by
+     * this store. If given points-to set is still shared, it is returned
+     * as it is.
+     */
+    public PointsToSet intern(PointsToSet pts) {
+        if (pts instanceof SharedPointsToSet shared && shared.isShared()) {
+            return pts;
+        }
+        Set<CSObj> objects = pts.getObjects();
+        WeakReference<Set<CSObj>> ref = canonicalSets.get(objects);
+        Set<CSObj> canonical = ref != null ? ref.get() : null;
+        if (canonical == null) {
+            canonical = Sets.newHybridSet();
+            canonical.addAll(objects);
+            canonicalSets.put(canonical, new WeakReference<>(canonical));
+            ++created;
+        }
+        ++interned;
+        return new SharedPointsToSet(canonical);
+    }
+
+    /**
+     * @return the number of points-to sets that have been interned.
+     */
+    public int getNumberOfInternedSets() {
+        return interned;
+    }
+
+    /**
+     * @return the number of canonical sets that have been created.
+     */
+    public int getNumberOfCreatedSets() {
+        return created;
+    }
+
+    /**
+     * @return the number of canonical sets in this store which are still
+     * shared by some points-to sets.
+     */
+    public int getNumberOfCanonicalSets() {
+        return canonicalSets.size();
+    }
+}
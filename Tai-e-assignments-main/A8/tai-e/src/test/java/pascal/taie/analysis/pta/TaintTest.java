@@ -23,51 +23,184 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TaintTest {
 
     static final String DIR = "taint";
 
+    static final String CONFIG_FILE = "src/test/resources/pta/taint/taint-config.yml";
+
+    static final String CONFIG = "taint-config:" + CONFIG_FILE;
+
     @Test
     public void testSimpleTaint() {
         Tests.testCSPTA(DIR, "SimpleTaint",
                 "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        // the detected taint flows must be the same in all modes
+        Tests.testCSPTA(DIR, "SimpleTaint", CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "SimpleTaint", CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "SimpleTaint", CONFIG + ";taint-witness:true");
     }
 
     @Test
     public void testArgToResult() {
         Tests.testCSPTA(DIR, "ArgToResult",
                 "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "ArgToResult", CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "ArgToResult", CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "ArgToResult", CONFIG + ";taint-witness:true");
     }
 
     @Test
     public void testBaseToResult() {
         Tests.testCSPTA(DIR, "BaseToResult",
                 "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "BaseToResult", CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "BaseToResult", CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "BaseToResult", CONFIG + ";taint-witness:true");
     }
 
     @Test
     public void testStringAppend() {
         Tests.testCSPTA(DIR, "StringAppend",
                 "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "StringAppend", CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "StringAppend", CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "StringAppend", CONFIG + ";taint-witness:true");
     }
 
     @Test
     public void testOneCallTaint() {
         Tests.testCSPTA(DIR, "OneCallTaint",
                 "cs:1-call;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "OneCallTaint",
+                "cs:1-call;" + CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "OneCallTaint",
+                "cs:1-call;" + CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "OneCallTaint",
+                "cs:1-call;" + CONFIG + ";taint-witness:true");
     }
 
     @Test
     public void testInterTaintTransfer() {
         Tests.testCSPTA(DIR, "InterTaintTransfer",
                 "cs:2-call;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;" + CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;" + CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;" + CONFIG + ";taint-witness:true");
     }
 
     @Test
     public void testTaintInList() {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;" + CONFIG + ";taint-lane:true");
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;" + CONFIG + ";taint-demand:true");
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;" + CONFIG + ";taint-witness:true");
+    }
+
+    @Test
+    public void testLaneReceiverTaint() {
+        // String.toString() is not a taint transfer, thus the flow is
+        // detected only if the call on the taint object is analyzed
+        Tests.testCSPTA(DIR, "ReceiverTaint", CONFIG);
+        Tests.testCSPTA(DIR, "ReceiverTaint", CONFIG + ";taint-lane:true");
+    }
+
+    @Test
+    public void testMultipleConfigs() throws IOException {
+        // the second config detects a part of the flows detected by the
+        // first one, and the key of its flows in the result contains "Taint"
+        Path config = Files.createTempFile("SinkOnlyTaint", ".yml");
+        try {
+            Files.writeString(config, """
+                    sources:
+                      - { method: "<SourceSink: java.lang.String source()>", type: "java.lang.String" }
+                    sinks:
+                      - { method: "<SourceSink: void sink(java.lang.String)>", index: 0 }
+                    """);
+            Tests.testCSPTA(DIR, "SimpleTaint",
+                    "taint-config:" + CONFIG_FILE + "," + config);
+            PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+            Set<TaintFlow> all = result.getResult(TaintAnalysiss.class.getName());
+            Set<TaintFlow> first = result.getResult(
+                    TaintAnalysiss.CONFIG_FLOWS_PREFIX + CONFIG_FILE);
+            Set<TaintFlow> second = result.getResult(
+                    TaintAnalysiss.CONFIG_FLOWS_PREFIX + config);
+            assertEquals(4, all.size());
+            assertEquals(all, first);
+            // only the flows to sink(String) are detected by the second one
+            assertEquals(2, second.size());
+            assertTrue(first.containsAll(second));
+        } finally {
+            Files.delete(config);
+        }
+    }
+
+    @Test
+    public void testDemandSharedCaller() {
+        // main() and helper() both call read() and write(), but the flow
+        // from read() to write() only goes through main()
+        Tests.testCSPTA(DIR, "SharedCaller", CONFIG + ";taint-demand:true");
+    }
+
+    @Test
+    public void testWitness() throws IOException {
+        List<String> path = dumpWitnessPath("BaseToResult", "taint-witness:true");
+        // from the variable receiving the result of source()
+        // to the argument of sink()
+        assertTrue(path.get(0).endsWith("/temp$0"));
+        assertTrue(path.get(path.size() - 1).endsWith("/s2"));
+        assertEquals(path, dumpWitnessPath("BaseToResult",
+                "taint-lane:true;taint-witness:true"));
+    }
+
+    /**
+     * Dumps the result of given test case, and returns the witness path
+     * of the first detected taint flow.
+     */
+    private static List<String> dumpWitnessPath(String main, String opts)
+            throws IOException {
+        Path file = Files.createTempFile(main, ".txt");
+        try {
+            Main.main(new String[]{
+                    "-pp", "-cp", "src/test/resources/pta/" + DIR, "-m", main,
+                    "-a", "cspta=implicit-entries:false;only-app:true;" +
+                    "action:dump;file:" + file + ";" + CONFIG + ";" + opts});
+            List<String> lines = Files.readAllLines(file);
+            int i = 0;
+            while (!lines.get(i).startsWith("TaintFlow{")) {
+                ++i;
+            }
+            int j = i + 1;
+            while (lines.get(j).startsWith("    ")) {
+                ++j;
+            }
+            assertTrue("witness path is absent", j > i + 1);
+            return lines.subList(i + 1, j).stream().map(String::trim).toList();
+        } finally {
+            Files.delete(file);
+        }
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TaintConfigCacheTest {
+
+    @Test
+    public void testDirectoryFingerprint() throws IOException {
+        Path dir = Files.createTempDirectory("classes");
+        Path pkg = Files.createDirectory(dir.resolve("pkg"));
+        Path a = Files.write(pkg.resolve("A.class"), new byte[]{1});
+        String classPath = dir + File.pathSeparator + dir.resolve("absent.jar");
+        try {
+            String fingerprint = TaintConfigCache.getFingerprint(classPath);
+            assertEquals(fingerprint, TaintConfigCache.getFingerprint(classPath));
+            // changing a class file under the directory invalidates the cache
+            Files.write(a, new byte[]{1, 2});
+            String changed = TaintConfigCache.getFingerprint(classPath);
+            assertNotEquals(fingerprint, changed);
+            // so does adding a class file
+            Path b = Files.write(pkg.resolve("B.class"), new byte[]{1, 2});
+            assertNotEquals(changed, TaintConfigCache.getFingerprint(classPath));
+            Files.delete(b);
+        } finally {
+            Files.delete(a);
+            Files.delete(pkg);
+            Files.delete(dir);
+        }
+    }
+}
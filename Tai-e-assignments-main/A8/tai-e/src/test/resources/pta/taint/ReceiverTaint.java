@@ -0,0 +1,8 @@
+class ReceiverTaint {
+
+    public static void main(String[] args) {
+        String s = SourceSink.source();
+        String t = s.toString();
+        SourceSink.sink(t); // taint
+    }
+}
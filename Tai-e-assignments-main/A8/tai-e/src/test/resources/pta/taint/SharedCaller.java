@@ -0,0 +1,21 @@
+class SharedCaller {
+
+    public static void main(String[] args) {
+        String s = read();
+        write(s); // taint
+        helper();
+    }
+
+    static String read() {
+        return SourceSink.source();
+    }
+
+    static void write(String s) {
+        SourceSink.sink(s);
+    }
+
+    static void helper() {
+        read();
+        write(new String());
+    }
+}